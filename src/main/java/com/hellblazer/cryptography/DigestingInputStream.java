@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2023 Hal Hildebrand. All rights reserved.
+ */
+package com.hellblazer.cryptography;
+
+import com.hellblazer.cryptography.hash.Digest;
+import com.hellblazer.cryptography.hash.DigestAlgorithm;
+import com.hellblazer.cryptography.hash.Hasher;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * An InputStream that digests the bytes read from the underlying stream in the same pass, using a pooled Hasher of
+ * the algorithm. Skipped bytes are read and digested. The digest of all the bytes read is available from
+ * {@link #getDigest()} once the stream is closed.
+ *
+ * @author hal.hildebrand
+ */
+public class DigestingInputStream extends FilterInputStream {
+    private static final int SKIP_BUFFER = 8 * 1024;
+
+    private final Hasher  hasher;
+    private       boolean closed;
+    private       Digest  digest;
+
+    public DigestingInputStream(InputStream in, DigestAlgorithm algorithm) {
+        super(in);
+        this.hasher = algorithm.newHasher();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            super.close();
+        } finally {
+            digest = hasher.finish();
+            hasher.close();
+        }
+    }
+
+    /**
+     * Answer the digest of the bytes read from the receiver
+     *
+     * @throws IllegalStateException if the receiver has not been closed
+     */
+    public Digest getDigest() {
+        if (digest == null) {
+            throw new IllegalStateException("Stream has not been closed");
+        }
+        return digest;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public int read() throws IOException {
+        ensureOpen();
+        var b = in.read();
+        if (b >= 0) {
+            hasher.update((byte) b);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        var read = in.read(b, off, len);
+        if (read > 0) {
+            hasher.update(b, off, read);
+        }
+        return read;
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        var buffer = new byte[(int) Math.min(SKIP_BUFFER, Math.max(n, 0))];
+        long skipped = 0;
+        while (skipped < n) {
+            var read = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+            if (read < 0) {
+                break;
+            }
+            skipped += read;
+        }
+        return skipped;
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+    }
+}
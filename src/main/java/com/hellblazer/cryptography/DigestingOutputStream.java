@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2023 Hal Hildebrand. All rights reserved.
+ */
+package com.hellblazer.cryptography;
+
+import com.hellblazer.cryptography.hash.Digest;
+import com.hellblazer.cryptography.hash.DigestAlgorithm;
+import com.hellblazer.cryptography.hash.Hasher;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * An OutputStream that digests the bytes written to the underlying stream in the same pass, using a pooled Hasher of
+ * the algorithm. The digest of all the bytes written is available from {@link #getDigest()} once the stream is
+ * closed.
+ *
+ * @author hal.hildebrand
+ */
+public class DigestingOutputStream extends FilterOutputStream {
+    private final Hasher  hasher;
+    private       boolean closed;
+    private       Digest  digest;
+
+    public DigestingOutputStream(OutputStream out, DigestAlgorithm algorithm) {
+        super(out);
+        this.hasher = algorithm.newHasher();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            super.close();
+        } finally {
+            digest = hasher.finish();
+            hasher.close();
+        }
+    }
+
+    /**
+     * Answer the digest of the bytes written to the receiver
+     *
+     * @throws IllegalStateException if the receiver has not been closed
+     */
+    public Digest getDigest() {
+        if (digest == null) {
+            throw new IllegalStateException("Stream has not been closed");
+        }
+        return digest;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        out.write(b, off, len);
+        hasher.update(b, off, len);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        out.write(b);
+        hasher.update((byte) b);
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+    }
+}
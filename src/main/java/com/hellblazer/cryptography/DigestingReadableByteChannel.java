@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2023 Hal Hildebrand. All rights reserved.
+ */
+package com.hellblazer.cryptography;
+
+import com.hellblazer.cryptography.hash.Digest;
+import com.hellblazer.cryptography.hash.DigestAlgorithm;
+import com.hellblazer.cryptography.hash.Hasher;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * A ReadableByteChannel that digests the bytes read from the underlying channel in the same pass, using a pooled
+ * Hasher of the algorithm. The digest of all the bytes read is available from {@link #getDigest()} once the channel
+ * is closed.
+ *
+ * @author hal.hildebrand
+ */
+public class DigestingReadableByteChannel implements ReadableByteChannel {
+    private final ReadableByteChannel channel;
+    private final Hasher              hasher;
+    private       boolean             closed;
+    private       Digest              digest;
+
+    public DigestingReadableByteChannel(ReadableByteChannel channel, DigestAlgorithm algorithm) {
+        this.channel = channel;
+        this.hasher = algorithm.newHasher();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            channel.close();
+        } finally {
+            digest = hasher.finish();
+            hasher.close();
+        }
+    }
+
+    /**
+     * Answer the digest of the bytes read from the receiver
+     *
+     * @throws IllegalStateException if the receiver has not been closed
+     */
+    public Digest getDigest() {
+        if (digest == null) {
+            throw new IllegalStateException("Channel has not been closed");
+        }
+        return digest;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return !closed && channel.isOpen();
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        ensureOpen();
+        var position = dst.position();
+        var read = channel.read(dst);
+        if (read > 0) {
+            hasher.update(dst.duplicate().position(position).limit(position + read));
+        }
+        return read;
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new ClosedChannelException();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2023 Hal Hildebrand. All rights reserved.
+ */
+package com.hellblazer.cryptography;
+
+import com.hellblazer.cryptography.hash.Digest;
+import com.hellblazer.cryptography.hash.DigestAlgorithm;
+import com.hellblazer.cryptography.hash.Hasher;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * A WritableByteChannel that digests the bytes written to the underlying channel in the same pass, using a pooled
+ * Hasher of the algorithm. Only the bytes the underlying channel accepts are digested, so partial writes are
+ * accounted for. The digest of all the bytes written is available from {@link #getDigest()} once the channel is
+ * closed.
+ *
+ * @author hal.hildebrand
+ */
+public class DigestingWritableByteChannel implements WritableByteChannel {
+    private final WritableByteChannel channel;
+    private final Hasher              hasher;
+    private       boolean             closed;
+    private       Digest              digest;
+
+    public DigestingWritableByteChannel(WritableByteChannel channel, DigestAlgorithm algorithm) {
+        this.channel = channel;
+        this.hasher = algorithm.newHasher();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            channel.close();
+        } finally {
+            digest = hasher.finish();
+            hasher.close();
+        }
+    }
+
+    /**
+     * Answer the digest of the bytes written to the receiver
+     *
+     * @throws IllegalStateException if the receiver has not been closed
+     */
+    public Digest getDigest() {
+        if (digest == null) {
+            throw new IllegalStateException("Channel has not been closed");
+        }
+        return digest;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return !closed && channel.isOpen();
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+        ensureOpen();
+        var position = src.position();
+        var written = channel.write(src);
+        if (written > 0) {
+            hasher.update(src.duplicate().position(position).limit(position + written));
+        }
+        return written;
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new ClosedChannelException();
+        }
+    }
+}
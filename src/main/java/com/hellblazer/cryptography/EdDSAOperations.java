@@ -6,6 +6,8 @@
  */
 package com.hellblazer.cryptography;
 
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.MessageLite;
 import org.bouncycastle.asn1.ASN1ObjectIdentifier;
 import org.bouncycastle.asn1.edec.EdECObjectIdentifiers;
 import org.bouncycastle.asn1.x509.AlgorithmIdentifier;
@@ -13,6 +15,7 @@ import org.bouncycastle.asn1.x509.SubjectPublicKeyInfo;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.security.*;
 import java.security.interfaces.EdECPublicKey;
 import java.security.spec.EdECPrivateKeySpec;
@@ -30,6 +33,8 @@ public class EdDSAOperations {
 
     public static final String EDDSA_ALGORITHM_NAME = "EdDSA";
 
+    private static final int MESSAGE_BUFFER = 4096;
+
     private static final ThreadLocal<Signature> SIGNATURE_CACHE = new ThreadLocal<>() {
 
         @Override
@@ -157,6 +162,42 @@ public class EdDSAOperations {
         }
     }
 
+    public JohnHancock sign(PrivateKey privateKey, MessageLite message) {
+        try {
+            var sig = SIGNATURE_CACHE.get();
+            sig.initSign(privateKey);
+            var size = message.getSerializedSize();
+            var coded = CodedOutputStream.newInstance(new OutputStream() {
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    try {
+                        sig.update(b, off, len);
+                    } catch (SignatureException e) {
+                        throw new IOException(e);
+                    }
+                }
+
+                @Override
+                public void write(int b) throws IOException {
+                    try {
+                        sig.update((byte) b);
+                    } catch (SignatureException e) {
+                        throw new IOException(e);
+                    }
+                }
+            }, Math.max(1, Math.min(size, MESSAGE_BUFFER)));
+            try {
+                message.writeTo(coded);
+                coded.flush();
+            } catch (IOException e) {
+                throw new IllegalStateException("Io error", e);
+            }
+            return new JohnHancock(signatureAlgorithm, sig.sign());
+        } catch (GeneralSecurityException e) {
+            throw new IllegalArgumentException("Cannot sign", e);
+        }
+    }
+
     public JohnHancock signature(byte[] signatureBytes) {
         return new JohnHancock(signatureAlgorithm, signatureBytes);
     }
@@ -3,6 +3,7 @@ package com.hellblazer.cryptography;
 import com.google.protobuf.ByteString;
 import com.hellblazer.cryptography.hash.Digest;
 import com.hellblazer.cryptography.hash.DigestAlgorithm;
+import com.hellblazer.cryptography.hash.DigestInterner;
 import com.hellblazer.cryptography.proto.Digest_;
 import com.hellblazer.cryptography.proto.PublicKey_;
 import com.hellblazer.cryptography.proto.Signature_;
@@ -103,6 +104,13 @@ public class QualifiedBase64 {
         return new Digest(d);
     }
 
+    /**
+     * Answer the canonical instance of the digest from the interner
+     */
+    public static Digest digest(Digest_ d, DigestInterner interner) {
+        return interner.intern(d);
+    }
+
     public static Digest digest(String qb64) {
         if (qb64.isEmpty()) {
             return Digest.NONE;
@@ -131,6 +139,13 @@ public class QualifiedBase64 {
         }
     }
 
+    /**
+     * Answer the canonical instance of the decoded digest from the interner
+     */
+    public static Digest digest(String qb64, DigestInterner interner) {
+        return interner.intern(digest(qb64));
+    }
+
     public static String digestCode(DigestAlgorithm algorithm) {
         return switch (algorithm) {
             case BLAKE2B_256 -> "F";
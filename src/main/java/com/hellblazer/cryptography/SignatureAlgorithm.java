@@ -7,6 +7,7 @@
 package com.hellblazer.cryptography;
 
 import com.google.protobuf.ByteString;
+import com.google.protobuf.MessageLite;
 
 import java.io.InputStream;
 import java.nio.ByteBuffer;
@@ -78,6 +79,11 @@ public enum SignatureAlgorithm {
             return ops.sign(privateKey, is);
         }
 
+        @Override
+        public JohnHancock sign(PrivateKey privateKey, MessageLite message) {
+            return ops.sign(privateKey, message);
+        }
+
         @Override
         public JohnHancock signature(byte[] signatureBytes) {
             return ops.signature(signatureBytes);
@@ -163,6 +169,11 @@ public enum SignatureAlgorithm {
             return ops.sign(privateKey, is);
         }
 
+        @Override
+        public JohnHancock sign(PrivateKey privateKey, MessageLite message) {
+            return ops.sign(privateKey, message);
+        }
+
         @Override
         public JohnHancock signature(byte[] signatureBytes) {
             return ops.signature(signatureBytes);
@@ -269,6 +280,11 @@ public enum SignatureAlgorithm {
             return new JohnHancock(NULL_SIGNATURE, new byte[64]);
         }
 
+        @Override
+        public JohnHancock sign(PrivateKey privateKey, MessageLite message) {
+            return new JohnHancock(NULL_SIGNATURE, new byte[64]);
+        }
+
     };
 
     public static final SignatureAlgorithm DEFAULT = ED_25519;
@@ -353,6 +369,14 @@ public enum SignatureAlgorithm {
 
     public abstract JohnHancock sign(PrivateKey privateKey, InputStream is);
 
+    /**
+     * Sign the serialized bytes of the message, which are encoded directly into the signature engine without building
+     * an intermediate byte array
+     */
+    public JohnHancock sign(PrivateKey privateKey, MessageLite message) {
+        return sign(privateKey, message.toByteString());
+    }
+
     abstract public JohnHancock signature(byte[] signatureBytes);
 
     abstract public byte signatureCode();
@@ -7,6 +7,7 @@
 package com.hellblazer.cryptography;
 
 import com.google.protobuf.ByteString;
+import com.google.protobuf.MessageLite;
 
 import java.io.InputStream;
 import java.nio.ByteBuffer;
@@ -42,6 +43,13 @@ public interface Signer {
         return sign(BbBackedInputStream.aggregate(buffers));
     }
 
+    /**
+     * Sign the serialized bytes of the message
+     */
+    default JohnHancock sign(MessageLite message) {
+        return sign(message.toByteString());
+    }
+
     default JohnHancock sign(String msg) {
         return sign(BbBackedInputStream.aggregate(msg.getBytes()));
     }
@@ -82,6 +90,11 @@ public interface Signer {
         public JohnHancock sign(List<ByteBuffer> buffers) {
             return new JohnHancock(algorithm(), new byte[algorithm().signatureLength()]);
         }
+
+        @Override
+        public JohnHancock sign(MessageLite message) {
+            return new JohnHancock(algorithm(), new byte[algorithm().signatureLength()]);
+        }
     }
 
     class SignerImpl implements Signer {
@@ -103,6 +116,11 @@ public interface Signer {
         public JohnHancock sign(InputStream message) {
             return algorithm.sign(privateKey, message);
         }
+
+        @Override
+        public JohnHancock sign(MessageLite message) {
+            return algorithm.sign(privateKey, message);
+        }
     }
 
 }
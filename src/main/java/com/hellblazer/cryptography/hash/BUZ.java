@@ -1,6 +1,7 @@
 package com.hellblazer.cryptography.hash;
 
 import java.nio.ByteBuffer;
+import java.util.Objects;
 
 /*
  * Licensed to the Apache Software Foundation (ASF) under one or more
@@ -22,6 +23,12 @@ public final class BUZ {
 
     private static final long MASTER = 0xe12398c6d9ae3b8aL;
 
+    /**
+     * The states after hashing four and eight bytes, before mixing in the bytes themselves
+     */
+    private static final long MASTER_4 = Long.rotateLeft(MASTER, 4);
+    private static final long MASTER_8 = Long.rotateLeft(MASTER, 8);
+
     private static final long[] MIX/* 0:255 */ = { /* 000 */0x4476081a7043a46fL, 0x45768b8a6e7eac19L,
                                                    0xebd556c1cf055952L, /* */0x72ed2da1bf010101L, 0x3ff2030b128e8a64L,
                                                    /* 005 */0xcbc330238adcfef2L, 0x737807fe42e20c6cL,
@@ -126,29 +133,121 @@ public final class BUZ {
                                                    0x7b4826726e560b10L, /* */0x2966e0099d8d7ce1L, 0xbb0dd5240d2b2adeL,
                                                    0x0d527cc60bbaa936L };
 
+    /**
+     * The mixing table indexed by the unsigned value of a byte. The original index of a byte b is (b ^ (b >>> 8)) &
+     * 0xff with b sign extended, which is b & 0xff for non negative bytes and ~b & 0xff for negative bytes
+     */
+    private static final long[] BYTE_MIX = new long[256];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            byte b = (byte) i;
+            BYTE_MIX[i] = MIX[(b ^ (b >>> 8)) & 0xff];
+        }
+    }
+
     /**
      * This is buzhash the hash function
      */
     public static long buzhash(ByteBuffer buff) {
         long h = MASTER;
         while (buff.hasRemaining()) {
-            byte b = buff.get();
-            h = (h << 1) ^ (h >>> 63) ^ MIX[(b ^ (b >>> 8)) & 0xff];
+            h = (h << 1) ^ (h >>> 63) ^ mix(buff.get());
+        }
+        return h;
+    }
+
+    /**
+     * Answer the buzhash of the bytes of the buffer from the index from to the index to, using absolute gets. The
+     * buffer's position is unchanged. Equivalent to buzhash(ByteBuffer) of the same range, for heap, direct and mapped
+     * buffers
+     */
+    public static long buzhash(ByteBuffer buff, int from, int to) {
+        Objects.checkFromToIndex(from, to, buff.limit());
+        long h = MASTER;
+        for (int i = from; i < to; i++) {
+            h = Long.rotateLeft(h, 1) ^ mix(buff.get(i));
+        }
+        return h;
+    }
+
+    /**
+     * Answer the buzhash of the length bytes of the array starting at the offset
+     */
+    public static long buzhash(byte[] bytes, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, bytes.length);
+        long h = MASTER;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            h = Long.rotateLeft(h, 1) ^ mix(bytes[i]);
         }
         return h;
     }
 
+    /**
+     * Answer the buzhash of the big endian bytes of the value, identical to hashing the value's bytes in a ByteBuffer
+     * but without allocation
+     */
     public static long buzhash(long value) {
-        ByteBuffer buff = ByteBuffer.allocate(8);
-        buff.putLong(value);
-        buff.flip();
-        return buzhash(buff);
+        long h = MASTER_8;
+        h ^= Long.rotateLeft(BYTE_MIX[(int) (value >>> 56)], 7);
+        h ^= Long.rotateLeft(BYTE_MIX[(int) (value >>> 48) & 0xff], 6);
+        h ^= Long.rotateLeft(BYTE_MIX[(int) (value >>> 40) & 0xff], 5);
+        h ^= Long.rotateLeft(BYTE_MIX[(int) (value >>> 32) & 0xff], 4);
+        h ^= Long.rotateLeft(BYTE_MIX[(int) (value >>> 24) & 0xff], 3);
+        h ^= Long.rotateLeft(BYTE_MIX[(int) (value >>> 16) & 0xff], 2);
+        h ^= Long.rotateLeft(BYTE_MIX[(int) (value >>> 8) & 0xff], 1);
+        return h ^ BYTE_MIX[(int) value & 0xff];
     }
 
+    /**
+     * Answer the buzhash of the big endian bytes of the value, identical to hashing the value's bytes in a ByteBuffer
+     * but without allocation
+     */
     public static long buzhash(int value) {
-        ByteBuffer buff = ByteBuffer.allocate(4);
-        buff.putInt(value);
-        buff.flip();
-        return buzhash(buff);
+        long h = MASTER_4;
+        h ^= Long.rotateLeft(BYTE_MIX[value >>> 24], 3);
+        h ^= Long.rotateLeft(BYTE_MIX[(value >>> 16) & 0xff], 2);
+        h ^= Long.rotateLeft(BYTE_MIX[(value >>> 8) & 0xff], 1);
+        return h ^ BYTE_MIX[value & 0xff];
+    }
+
+    /**
+     * Hash each value of the input into the corresponding element of the output, which may be the same array
+     */
+    public static void buzhash(long[] in, long[] out) {
+        if (out.length < in.length) {
+            throw new IllegalArgumentException("Output length: " + out.length + " less than input: " + in.length);
+        }
+        buzhash(in, 0, out, 0, in.length);
+    }
+
+    /**
+     * Hash the length values of the input starting at the offset into the output starting at the output offset
+     */
+    public static void buzhash(long[] in, int offset, long[] out, int outOffset, int length) {
+        Objects.checkFromIndexSize(offset, length, in.length);
+        Objects.checkFromIndexSize(outOffset, length, out.length);
+        for (int i = 0; i < length; i++) {
+            out[outOffset + i] = buzhash(in[offset + i]);
+        }
+    }
+
+    /**
+     * Answer the rolling buzhash of a window of the supplied size, advanced by one byte: the outgoing byte, which
+     * entered the window size bytes ago, is removed and the incoming byte is added. The hash is that of the window, as
+     * answered by buzhash(bytes, offset, window) or by a previous roll, and the result is the buzhash of the advanced
+     * window
+     */
+    public static long roll(long hash, byte out, byte in, int window) {
+        // Cancel the rotation of the seed, so it remains that of a window of the supplied size
+        return Long.rotateLeft(hash, 1) ^ Long.rotateLeft(MASTER, window) ^ Long.rotateLeft(MASTER, window + 1)
+        ^ Long.rotateLeft(mix(out), window) ^ mix(in);
+    }
+
+    /**
+     * Answer the mixing table entry of the byte
+     */
+    static long mix(byte b) {
+        return BYTE_MIX[b & 0xff];
     }
 }
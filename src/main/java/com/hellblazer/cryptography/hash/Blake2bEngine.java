@@ -0,0 +1,203 @@
+/*
+ * Copyright (C) 2023 Hal Hildebrand. All rights reserved.
+ */
+package com.hellblazer.cryptography.hash;
+
+import org.bouncycastle.crypto.ExtendedDigest;
+import org.bouncycastle.crypto.digests.EncodableDigest;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * An unkeyed, incremental BLAKE2b digest whose intermediate state may be encoded and later restored, continuing the
+ * computation where it left off. The encoded state is the chaining value, the byte counter and the buffered bytes of
+ * the current block.
+ * <p>
+ * See <a href="https://www.rfc-editor.org/rfc/rfc7693">RFC 7693</a>
+ *
+ * @author hal.hildebrand
+ */
+final class Blake2bEngine implements ExtendedDigest, EncodableDigest {
+    private static final int BLOCK_LEN = 128;
+
+    private static final long[] IV = { 0x6a09e667f3bcc908L, 0xbb67ae8584caa73bL, 0x3c6ef372fe94f82bL,
+                                       0xa54ff53a5f1d36f1L, 0x510e527fade682d1L, 0x9b05688c2b3e6c1fL,
+                                       0x1f83d9abfb41bd6bL, 0x5be0cd19137e2179L };
+
+    static final byte[][] SIGMA = { { 0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15 },
+                                    { 14, 10, 4, 8, 9, 15, 13, 6, 1, 12, 0, 2, 11, 7, 5, 3 },
+                                    { 11, 8, 12, 0, 5, 2, 15, 13, 10, 14, 3, 6, 7, 1, 9, 4 },
+                                    { 7, 9, 3, 1, 13, 12, 11, 14, 2, 6, 5, 10, 4, 0, 15, 8 },
+                                    { 9, 0, 5, 7, 2, 4, 10, 15, 14, 1, 11, 12, 6, 8, 3, 13 },
+                                    { 2, 12, 6, 10, 0, 11, 8, 3, 4, 13, 7, 5, 15, 14, 1, 9 },
+                                    { 12, 5, 1, 15, 14, 13, 4, 10, 0, 7, 6, 3, 9, 2, 8, 11 },
+                                    { 13, 11, 7, 14, 12, 1, 3, 9, 5, 0, 15, 4, 8, 6, 2, 10 },
+                                    { 6, 15, 14, 9, 11, 3, 0, 8, 12, 2, 13, 7, 1, 4, 10, 5 },
+                                    { 10, 2, 8, 4, 7, 6, 1, 5, 15, 11, 9, 14, 3, 12, 13, 0 } };
+
+    private final byte[] buffer = new byte[BLOCK_LEN];
+    private final long[] h      = new long[8];
+    private final int    length;
+    private final long[] m      = new long[16];
+    private final long[] v      = new long[16];
+    private       int    buffered;
+    private       long   counter;
+
+    /**
+     * @param length - the digest length in bytes, from 1 to 64
+     */
+    Blake2bEngine(int length) {
+        if (length < 1 || length > 64) {
+            throw new IllegalArgumentException("Invalid BLAKE2b digest length: " + length);
+        }
+        this.length = length;
+        reset();
+    }
+
+    /**
+     * Restore the engine from the encoded state of an engine of the digest length
+     */
+    Blake2bEngine(int length, byte[] state) {
+        this(length);
+        var in = ByteBuffer.wrap(state);
+        if (state.length < 1 + 64 + 8 + 1 || in.get() != length) {
+            throw new IllegalArgumentException("Invalid BLAKE2b state");
+        }
+        for (int i = 0; i < 8; i++) {
+            h[i] = in.getLong();
+        }
+        counter = in.getLong();
+        buffered = in.get() & 0xFF;
+        if (buffered > BLOCK_LEN || in.remaining() != buffered) {
+            throw new IllegalArgumentException("Invalid BLAKE2b state");
+        }
+        in.get(buffer, 0, buffered);
+    }
+
+    @Override
+    public int doFinal(byte[] out, int outOff) {
+        counter += buffered;
+        Arrays.fill(buffer, buffered, BLOCK_LEN, (byte) 0);
+        compress(buffer, 0, true);
+        for (int i = 0; i < length; i++) {
+            out[outOff + i] = (byte) (h[i >>> 3] >>> ((i & 7) << 3));
+        }
+        reset();
+        return length;
+    }
+
+    @Override
+    public String getAlgorithmName() {
+        return "BLAKE2b";
+    }
+
+    @Override
+    public int getByteLength() {
+        return BLOCK_LEN;
+    }
+
+    @Override
+    public int getDigestSize() {
+        return length;
+    }
+
+    @Override
+    public byte[] getEncodedState() {
+        var state = ByteBuffer.allocate(1 + 64 + 8 + 1 + buffered);
+        state.put((byte) length);
+        for (var word : h) {
+            state.putLong(word);
+        }
+        return state.putLong(counter).put((byte) buffered).put(buffer, 0, buffered).array();
+    }
+
+    @Override
+    public void reset() {
+        System.arraycopy(IV, 0, h, 0, 8);
+        h[0] ^= 0x01010000L ^ length;
+        counter = 0;
+        buffered = 0;
+    }
+
+    @Override
+    public void update(byte in) {
+        if (buffered == BLOCK_LEN) {
+            counter += BLOCK_LEN;
+            compress(buffer, 0, false);
+            buffered = 0;
+        }
+        buffer[buffered++] = in;
+    }
+
+    @Override
+    public void update(byte[] in, int inOff, int len) {
+        if (len <= 0) {
+            return;
+        }
+        if (buffered > 0) {
+            var fill = Math.min(BLOCK_LEN - buffered, len);
+            System.arraycopy(in, inOff, buffer, buffered, fill);
+            buffered += fill;
+            inOff += fill;
+            len -= fill;
+            if (len == 0) {
+                return;
+            }
+            counter += BLOCK_LEN;
+            compress(buffer, 0, false);
+            buffered = 0;
+        }
+        // The last block is retained, as it must be compressed as the final block if no more input follows
+        while (len > BLOCK_LEN) {
+            counter += BLOCK_LEN;
+            compress(in, inOff, false);
+            inOff += BLOCK_LEN;
+            len -= BLOCK_LEN;
+        }
+        System.arraycopy(in, inOff, buffer, 0, len);
+        buffered = len;
+    }
+
+    private void compress(byte[] block, int offset, boolean last) {
+        for (int i = 0; i < 16; i++) {
+            var o = offset + (i << 3);
+            long word = 0;
+            for (int j = 7; j >= 0; j--) {
+                word = (word << 8) | (block[o + j] & 0xFF);
+            }
+            m[i] = word;
+        }
+        System.arraycopy(h, 0, v, 0, 8);
+        System.arraycopy(IV, 0, v, 8, 8);
+        v[12] ^= counter;
+        if (last) {
+            v[14] = ~v[14];
+        }
+        for (int r = 0; r < 12; r++) {
+            var s = SIGMA[r % 10];
+            g(0, 4, 8, 12, m[s[0]], m[s[1]]);
+            g(1, 5, 9, 13, m[s[2]], m[s[3]]);
+            g(2, 6, 10, 14, m[s[4]], m[s[5]]);
+            g(3, 7, 11, 15, m[s[6]], m[s[7]]);
+            g(0, 5, 10, 15, m[s[8]], m[s[9]]);
+            g(1, 6, 11, 12, m[s[10]], m[s[11]]);
+            g(2, 7, 8, 13, m[s[12]], m[s[13]]);
+            g(3, 4, 9, 14, m[s[14]], m[s[15]]);
+        }
+        for (int i = 0; i < 8; i++) {
+            h[i] ^= v[i] ^ v[i + 8];
+        }
+    }
+
+    private void g(int a, int b, int c, int d, long x, long y) {
+        v[a] += v[b] + x;
+        v[d] = Long.rotateRight(v[d] ^ v[a], 32);
+        v[c] += v[d];
+        v[b] = Long.rotateRight(v[b] ^ v[c], 24);
+        v[a] += v[b] + y;
+        v[d] = Long.rotateRight(v[d] ^ v[a], 16);
+        v[c] += v[d];
+        v[b] = Long.rotateRight(v[b] ^ v[c], 63);
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright (C) 2023 Hal Hildebrand. All rights reserved.
+ */
+package com.hellblazer.cryptography.hash;
+
+import org.bouncycastle.crypto.ExtendedDigest;
+import org.bouncycastle.crypto.digests.EncodableDigest;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static com.hellblazer.cryptography.hash.Blake2bEngine.SIGMA;
+
+/**
+ * An unkeyed, incremental BLAKE2s digest whose intermediate state may be encoded and later restored, continuing the
+ * computation where it left off. The encoded state is the chaining value, the byte counter and the buffered bytes of
+ * the current block.
+ * <p>
+ * See <a href="https://www.rfc-editor.org/rfc/rfc7693">RFC 7693</a>
+ *
+ * @author hal.hildebrand
+ */
+final class Blake2sEngine implements ExtendedDigest, EncodableDigest {
+    private static final int BLOCK_LEN = 64;
+
+    private final byte[] buffer = new byte[BLOCK_LEN];
+    private final int[]  h      = new int[8];
+    private final int    length;
+    private final int[]  m      = new int[16];
+    private final int[]  v      = new int[16];
+    private       int    buffered;
+    private       long   counter;
+
+    /**
+     * @param length - the digest length in bytes, from 1 to 32
+     */
+    Blake2sEngine(int length) {
+        if (length < 1 || length > 32) {
+            throw new IllegalArgumentException("Invalid BLAKE2s digest length: " + length);
+        }
+        this.length = length;
+        reset();
+    }
+
+    /**
+     * Restore the engine from the encoded state of an engine of the digest length
+     */
+    Blake2sEngine(int length, byte[] state) {
+        this(length);
+        var in = ByteBuffer.wrap(state);
+        if (state.length < 1 + 32 + 8 + 1 || in.get() != length) {
+            throw new IllegalArgumentException("Invalid BLAKE2s state");
+        }
+        for (int i = 0; i < 8; i++) {
+            h[i] = in.getInt();
+        }
+        counter = in.getLong();
+        buffered = in.get() & 0xFF;
+        if (buffered > BLOCK_LEN || in.remaining() != buffered) {
+            throw new IllegalArgumentException("Invalid BLAKE2s state");
+        }
+        in.get(buffer, 0, buffered);
+    }
+
+    @Override
+    public int doFinal(byte[] out, int outOff) {
+        counter += buffered;
+        Arrays.fill(buffer, buffered, BLOCK_LEN, (byte) 0);
+        compress(buffer, 0, true);
+        for (int i = 0; i < length; i++) {
+            out[outOff + i] = (byte) (h[i >>> 2] >>> ((i & 3) << 3));
+        }
+        reset();
+        return length;
+    }
+
+    @Override
+    public String getAlgorithmName() {
+        return "BLAKE2s";
+    }
+
+    @Override
+    public int getByteLength() {
+        return BLOCK_LEN;
+    }
+
+    @Override
+    public int getDigestSize() {
+        return length;
+    }
+
+    @Override
+    public byte[] getEncodedState() {
+        var state = ByteBuffer.allocate(1 + 32 + 8 + 1 + buffered);
+        state.put((byte) length);
+        for (var word : h) {
+            state.putInt(word);
+        }
+        return state.putLong(counter).put((byte) buffered).put(buffer, 0, buffered).array();
+    }
+
+    @Override
+    public void reset() {
+        System.arraycopy(Blake3.IV, 0, h, 0, 8);
+        h[0] ^= 0x01010000 ^ length;
+        counter = 0;
+        buffered = 0;
+    }
+
+    @Override
+    public void update(byte in) {
+        if (buffered == BLOCK_LEN) {
+            counter += BLOCK_LEN;
+            compress(buffer, 0, false);
+            buffered = 0;
+        }
+        buffer[buffered++] = in;
+    }
+
+    @Override
+    public void update(byte[] in, int inOff, int len) {
+        if (len <= 0) {
+            return;
+        }
+        if (buffered > 0) {
+            var fill = Math.min(BLOCK_LEN - buffered, len);
+            System.arraycopy(in, inOff, buffer, buffered, fill);
+            buffered += fill;
+            inOff += fill;
+            len -= fill;
+            if (len == 0) {
+                return;
+            }
+            counter += BLOCK_LEN;
+            compress(buffer, 0, false);
+            buffered = 0;
+        }
+        // The last block is retained, as it must be compressed as the final block if no more input follows
+        while (len > BLOCK_LEN) {
+            counter += BLOCK_LEN;
+            compress(in, inOff, false);
+            inOff += BLOCK_LEN;
+            len -= BLOCK_LEN;
+        }
+        System.arraycopy(in, inOff, buffer, 0, len);
+        buffered = len;
+    }
+
+    private void compress(byte[] block, int offset, boolean last) {
+        for (int i = 0; i < 16; i++) {
+            var o = offset + (i << 2);
+            m[i] = (block[o] & 0xFF) | (block[o + 1] & 0xFF) << 8 | (block[o + 2] & 0xFF) << 16 | block[o + 3] << 24;
+        }
+        System.arraycopy(h, 0, v, 0, 8);
+        System.arraycopy(Blake3.IV, 0, v, 8, 8);
+        v[12] ^= (int) counter;
+        v[13] ^= (int) (counter >>> 32);
+        if (last) {
+            v[14] = ~v[14];
+        }
+        for (int r = 0; r < 10; r++) {
+            var s = SIGMA[r];
+            g(0, 4, 8, 12, m[s[0]], m[s[1]]);
+            g(1, 5, 9, 13, m[s[2]], m[s[3]]);
+            g(2, 6, 10, 14, m[s[4]], m[s[5]]);
+            g(3, 7, 11, 15, m[s[6]], m[s[7]]);
+            g(0, 5, 10, 15, m[s[8]], m[s[9]]);
+            g(1, 6, 11, 12, m[s[10]], m[s[11]]);
+            g(2, 7, 8, 13, m[s[12]], m[s[13]]);
+            g(3, 4, 9, 14, m[s[14]], m[s[15]]);
+        }
+        for (int i = 0; i < 8; i++) {
+            h[i] ^= v[i] ^ v[i + 8];
+        }
+    }
+
+    private void g(int a, int b, int c, int d, int x, int y) {
+        v[a] += v[b] + x;
+        v[d] = Integer.rotateRight(v[d] ^ v[a], 16);
+        v[c] += v[d];
+        v[b] = Integer.rotateRight(v[b] ^ v[c], 12);
+        v[a] += v[b] + y;
+        v[d] = Integer.rotateRight(v[d] ^ v[a], 8);
+        v[c] += v[d];
+        v[b] = Integer.rotateRight(v[b] ^ v[c], 7);
+    }
+}
@@ -0,0 +1,398 @@
+/*
+ * Copyright (C) 2023 Hal Hildebrand. All rights reserved.
+ */
+package com.hellblazer.cryptography.hash;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * The BLAKE3 tree hash, computed over whole inputs. Chunk chaining values and the parent nodes of subtrees are computed
+ * independently, so large inputs may be hashed across the fork join pool. The result is identical to the serial BLAKE3
+ * digest of the input.
+ * <p>
+ * See the <a href="https://github.com/BLAKE3-team/BLAKE3-specs/blob/master/blake3.pdf">BLAKE3 specification</a>
+ *
+ * @author hal.hildebrand
+ */
+final class Blake3 {
+    static final int BLOCK_LEN = 64;
+    static final int CHUNK_LEN = 1024;
+
+    static final int CHUNK_END   = 1 << 1;
+    static final int CHUNK_START = 1 << 0;
+    static final int PARENT      = 1 << 2;
+    static final int ROOT        = 1 << 3;
+
+    static final int[] IV = { 0x6A09E667, 0xBB67AE85, 0x3C6EF372, 0xA54FF53A, 0x510E527F, 0x9B05688C, 0x1F83D9AB,
+                              0x5BE0CD19 };
+
+    /**
+     * Subtrees of at most this many chunks are hashed serially
+     */
+    private static final int PARALLEL_CHUNKS = 64;
+    /**
+     * Files are mapped in windows of this size, a power of two number of chunks
+     */
+    private static final int MAP_WINDOW      = 64 * 1024 * 1024;
+
+    private static final int[][] SCHEDULE;
+
+    static {
+        final int[] permutation = { 2, 6, 3, 10, 7, 0, 4, 13, 1, 11, 12, 5, 9, 14, 15, 8 };
+        SCHEDULE = new int[7][16];
+        for (int i = 0; i < 16; i++) {
+            SCHEDULE[0][i] = i;
+        }
+        for (int r = 1; r < 7; r++) {
+            for (int i = 0; i < 16; i++) {
+                SCHEDULE[r][i] = SCHEDULE[r - 1][permutation[i]];
+            }
+        }
+    }
+
+    private Blake3() {
+    }
+
+    /**
+     * Compress the block, answering the full 16 word output state
+     */
+    static void compress(int[] cv, int[] m, long counter, int blockLen, int flags, int[] out) {
+        int v0 = cv[0], v1 = cv[1], v2 = cv[2], v3 = cv[3], v4 = cv[4], v5 = cv[5], v6 = cv[6], v7 = cv[7];
+        int v8 = IV[0], v9 = IV[1], v10 = IV[2], v11 = IV[3];
+        int v12 = (int) counter, v13 = (int) (counter >>> 32), v14 = blockLen, v15 = flags;
+
+        for (int r = 0; r < 7; r++) {
+            final int[] s = SCHEDULE[r];
+            // columns
+            v0 += v4 + m[s[0]];
+            v12 = Integer.rotateRight(v12 ^ v0, 16);
+            v8 += v12;
+            v4 = Integer.rotateRight(v4 ^ v8, 12);
+            v0 += v4 + m[s[1]];
+            v12 = Integer.rotateRight(v12 ^ v0, 8);
+            v8 += v12;
+            v4 = Integer.rotateRight(v4 ^ v8, 7);
+
+            v1 += v5 + m[s[2]];
+            v13 = Integer.rotateRight(v13 ^ v1, 16);
+            v9 += v13;
+            v5 = Integer.rotateRight(v5 ^ v9, 12);
+            v1 += v5 + m[s[3]];
+            v13 = Integer.rotateRight(v13 ^ v1, 8);
+            v9 += v13;
+            v5 = Integer.rotateRight(v5 ^ v9, 7);
+
+            v2 += v6 + m[s[4]];
+            v14 = Integer.rotateRight(v14 ^ v2, 16);
+            v10 += v14;
+            v6 = Integer.rotateRight(v6 ^ v10, 12);
+            v2 += v6 + m[s[5]];
+            v14 = Integer.rotateRight(v14 ^ v2, 8);
+            v10 += v14;
+            v6 = Integer.rotateRight(v6 ^ v10, 7);
+
+            v3 += v7 + m[s[6]];
+            v15 = Integer.rotateRight(v15 ^ v3, 16);
+            v11 += v15;
+            v7 = Integer.rotateRight(v7 ^ v11, 12);
+            v3 += v7 + m[s[7]];
+            v15 = Integer.rotateRight(v15 ^ v3, 8);
+            v11 += v15;
+            v7 = Integer.rotateRight(v7 ^ v11, 7);
+
+            // diagonals
+            v0 += v5 + m[s[8]];
+            v15 = Integer.rotateRight(v15 ^ v0, 16);
+            v10 += v15;
+            v5 = Integer.rotateRight(v5 ^ v10, 12);
+            v0 += v5 + m[s[9]];
+            v15 = Integer.rotateRight(v15 ^ v0, 8);
+            v10 += v15;
+            v5 = Integer.rotateRight(v5 ^ v10, 7);
+
+            v1 += v6 + m[s[10]];
+            v12 = Integer.rotateRight(v12 ^ v1, 16);
+            v11 += v12;
+            v6 = Integer.rotateRight(v6 ^ v11, 12);
+            v1 += v6 + m[s[11]];
+            v12 = Integer.rotateRight(v12 ^ v1, 8);
+            v11 += v12;
+            v6 = Integer.rotateRight(v6 ^ v11, 7);
+
+            v2 += v7 + m[s[12]];
+            v13 = Integer.rotateRight(v13 ^ v2, 16);
+            v8 += v13;
+            v7 = Integer.rotateRight(v7 ^ v8, 12);
+            v2 += v7 + m[s[13]];
+            v13 = Integer.rotateRight(v13 ^ v2, 8);
+            v8 += v13;
+            v7 = Integer.rotateRight(v7 ^ v8, 7);
+
+            v3 += v4 + m[s[14]];
+            v14 = Integer.rotateRight(v14 ^ v3, 16);
+            v9 += v14;
+            v4 = Integer.rotateRight(v4 ^ v9, 12);
+            v3 += v4 + m[s[15]];
+            v14 = Integer.rotateRight(v14 ^ v3, 8);
+            v9 += v14;
+            v4 = Integer.rotateRight(v4 ^ v9, 7);
+        }
+
+        out[0] = v0 ^ v8;
+        out[1] = v1 ^ v9;
+        out[2] = v2 ^ v10;
+        out[3] = v3 ^ v11;
+        out[4] = v4 ^ v12;
+        out[5] = v5 ^ v13;
+        out[6] = v6 ^ v14;
+        out[7] = v7 ^ v15;
+        out[8] = v8 ^ cv[0];
+        out[9] = v9 ^ cv[1];
+        out[10] = v10 ^ cv[2];
+        out[11] = v11 ^ cv[3];
+        out[12] = v12 ^ cv[4];
+        out[13] = v13 ^ cv[5];
+        out[14] = v14 ^ cv[6];
+        out[15] = v15 ^ cv[7];
+    }
+
+    /**
+     * Answer the BLAKE3 hash of the region of the file, of the requested output length. The file is mapped in windows
+     * that are complete subtrees of the BLAKE3 tree, and each window is hashed in place.
+     *
+     * @param channel  - the file
+     * @param offset   - the offset in the file of the first byte to hash
+     * @param size     - the number of bytes to hash
+     * @param length   - the number of output bytes
+     * @param parallel - if true, each window is hashed across the common fork join pool
+     */
+    static byte[] hash(FileChannel channel, long offset, long size, int length, boolean parallel) {
+        return hash(channel, offset, size, length, MAP_WINDOW, parallel);
+    }
+
+    /**
+     * Answer the BLAKE3 hash of the region of the file, mapped in windows of the supplied power of two number of chunks
+     */
+    static byte[] hash(FileChannel channel, long offset, long size, int length, long window, boolean parallel) {
+        Source source = (position, bytes) -> {
+            try {
+                return channel.map(MapMode.READ_ONLY, offset + position, bytes).order(ByteOrder.LITTLE_ENDIAN);
+            } catch (IOException e) {
+                throw new IllegalStateException("Error reading from file, cannot generate hash", e);
+            }
+        };
+        return parallel ? inPool(() -> hash(source, size, window, length, true))
+                        : hash(source, size, window, length, false);
+    }
+
+    /**
+     * Answer the BLAKE3 hash of the remaining bytes of the input, of the requested output length. The input's position
+     * is advanced to its limit.
+     *
+     * @param input    - the input bytes
+     * @param length   - the number of output bytes
+     * @param parallel - if true, large inputs are hashed across the common fork join pool
+     */
+    static byte[] hash(ByteBuffer input, int length, boolean parallel) {
+        var in = input.slice().order(ByteOrder.LITTLE_ENDIAN);
+        input.position(input.limit());
+        Source source = (position, bytes) -> in.slice((int) position, bytes).order(ByteOrder.LITTLE_ENDIAN);
+        return parallel ? inPool(() -> hash(source, in.remaining(), Long.MAX_VALUE, length, true))
+                        : hash(source, in.remaining(), Long.MAX_VALUE, length, false);
+    }
+
+    private static byte[] hash(Source source, long size, long window, int length, boolean parallel) {
+        var output = new Output();
+        if (size <= CHUNK_LEN) {
+            chunk(source.window(0, (int) size), 0, (int) size, 0, IV, output);
+        } else {
+            var leftLength = leftLength(size);
+            parent(chainingValue(source, 0, leftLength, 0, window, parallel),
+                   chainingValue(source, leftLength, size - leftLength, leftLength / CHUNK_LEN, window, parallel),
+                   IV, output);
+        }
+        return output.root(length);
+    }
+
+    private static byte[] inPool(Callable<byte[]> hash) {
+        if (ForkJoinTask.inForkJoinPool()) {
+            try {
+                return hash.call();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return ForkJoinPool.commonPool().submit(hash).join();
+    }
+
+    /**
+     * Answer the chaining value of the non root subtree. Subtrees no larger than the window are read from a single
+     * window of the source; as every subtree starts at a multiple of a power of two no smaller than its length, and
+     * the window is a power of two, such a subtree never spans windows.
+     */
+    private static int[] chainingValue(Source source, long offset, long size, long counter, long window,
+                                       boolean parallel) {
+        if (size <= window) {
+            var in = source.window(offset, (int) size);
+            return parallel ? new Subtree(in, 0, (int) size, counter).invoke() : subtree(in, 0, (int) size, counter);
+        }
+        var leftLength = leftLength(size);
+        var output = new Output();
+        parent(chainingValue(source, offset, leftLength, counter, window, parallel),
+               chainingValue(source, offset + leftLength, size - leftLength, counter + leftLength / CHUNK_LEN, window,
+                             parallel), IV, output);
+        return chainingValue(output);
+    }
+
+    static int[] chainingValue(Output output) {
+        var out = new int[16];
+        compress(output.cv, output.block, output.counter, output.blockLength, output.flags, out);
+        var cv = new int[8];
+        System.arraycopy(out, 0, cv, 0, 8);
+        return cv;
+    }
+
+    /**
+     * Compress all but the last block of the chunk, leaving the last block's compression inputs in the output
+     */
+    private static void chunk(ByteBuffer in, int offset, int length, long counter, int[] key, Output output) {
+        var cv = key.clone();
+        var block = new int[16];
+        var out = new int[16];
+        var flags = CHUNK_START;
+        var position = offset;
+        var end = offset + length;
+        while (end - position > BLOCK_LEN) {
+            for (int i = 0; i < 16; i++) {
+                block[i] = in.getInt(position + (i << 2));
+            }
+            compress(cv, block, counter, BLOCK_LEN, flags, out);
+            System.arraycopy(out, 0, cv, 0, 8);
+            flags = 0;
+            position += BLOCK_LEN;
+        }
+        var remaining = end - position;
+        if (remaining == BLOCK_LEN) {
+            for (int i = 0; i < 16; i++) {
+                block[i] = in.getInt(position + (i << 2));
+            }
+        } else {
+            Arrays.fill(block, 0);
+            for (int i = 0; i < remaining; i++) {
+                block[i >> 2] |= (in.get(position + i) & 0xFF) << ((i & 3) << 3);
+            }
+        }
+        output.cv = cv;
+        output.block = block;
+        output.counter = counter;
+        output.blockLength = remaining;
+        output.flags = flags | CHUNK_END;
+    }
+
+    /**
+     * The length of the left subtree; the largest power of two number of chunks strictly less than the length
+     */
+    private static long leftLength(long length) {
+        var fullChunks = (length - 1) / CHUNK_LEN;
+        return Long.highestOneBit(fullChunks) * CHUNK_LEN;
+    }
+
+    static void parent(int[] left, int[] right, int[] key, Output output) {
+        var block = new int[16];
+        System.arraycopy(left, 0, block, 0, 8);
+        System.arraycopy(right, 0, block, 8, 8);
+        output.cv = key;
+        output.block = block;
+        output.counter = 0;
+        output.blockLength = BLOCK_LEN;
+        output.flags = PARENT;
+    }
+
+    /**
+     * Answer the chaining value of the non root subtree
+     */
+    private static int[] subtree(ByteBuffer in, int offset, int length, long counter) {
+        var output = new Output();
+        if (length <= CHUNK_LEN) {
+            chunk(in, offset, length, counter, IV, output);
+        } else {
+            var leftLength = (int) leftLength(length);
+            parent(subtree(in, offset, leftLength, counter),
+                   subtree(in, offset + leftLength, length - leftLength, counter + leftLength / CHUNK_LEN), IV,
+                   output);
+        }
+        return chainingValue(output);
+    }
+
+    /**
+     * The compression inputs of a node, from which either its chaining value or the root output is derived
+     */
+    static class Output {
+        int[] block;
+        int   blockLength;
+        long  counter;
+        int[] cv;
+        int   flags;
+
+        byte[] root(int length) {
+            var result = new byte[length];
+            var out = new int[16];
+            long outputBlock = 0;
+            for (int position = 0; position < length; outputBlock++) {
+                compress(cv, block, outputBlock, blockLength, flags | ROOT, out);
+                for (int i = 0; i < 16 && position < length; i++) {
+                    var word = out[i];
+                    for (int j = 0; j < 4 && position < length; j++) {
+                        result[position++] = (byte) (word >>> (j << 3));
+                    }
+                }
+            }
+            return result;
+        }
+    }
+
+    @FunctionalInterface
+    private interface Source {
+        /**
+         * Answer the little endian buffer holding the bytes of the input at [position, position + length)
+         */
+        ByteBuffer window(long position, int length);
+    }
+
+    private static class Subtree extends RecursiveTask<int[]> {
+        private final long       counter;
+        private final ByteBuffer in;
+        private final int        length;
+        private final int        offset;
+
+        private Subtree(ByteBuffer in, int offset, int length, long counter) {
+            this.in = in;
+            this.offset = offset;
+            this.length = length;
+            this.counter = counter;
+        }
+
+        @Override
+        protected int[] compute() {
+            if (length <= PARALLEL_CHUNKS * CHUNK_LEN) {
+                return subtree(in, offset, length, counter);
+            }
+            var leftLength = (int) leftLength(length);
+            var right = new Subtree(in, offset + leftLength, length - leftLength,
+                                    counter + leftLength / CHUNK_LEN).fork();
+            var left = new Subtree(in, offset, leftLength, counter).compute();
+            var output = new Output();
+            parent(left, right.join(), IV, output);
+            return chainingValue(output);
+        }
+    }
+}
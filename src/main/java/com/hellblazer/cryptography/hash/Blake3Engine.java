@@ -0,0 +1,209 @@
+/*
+ * Copyright (C) 2023 Hal Hildebrand. All rights reserved.
+ */
+package com.hellblazer.cryptography.hash;
+
+import org.bouncycastle.crypto.ExtendedDigest;
+import org.bouncycastle.crypto.Xof;
+import org.bouncycastle.crypto.digests.EncodableDigest;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static com.hellblazer.cryptography.hash.Blake3.*;
+
+/**
+ * An unkeyed, incremental BLAKE3 digest whose intermediate state may be encoded and later restored, continuing the
+ * computation where it left off. The state is that of the current chunk, with the chaining values of the completed
+ * subtrees held on a stack, one per bit set in the count of completed chunks. The encoded state is thus at most a few
+ * kilobytes, regardless of the length of the input.
+ *
+ * @author hal.hildebrand
+ */
+final class Blake3Engine implements ExtendedDigest, Xof, EncodableDigest {
+    private static final int MAX_DEPTH = 54;
+
+    private final byte[]  block  = new byte[BLOCK_LEN];
+    private final int[]   cv     = new int[8];
+    private final int     length;
+    private final int[]   m      = new int[16];
+    private final int[]   out    = new int[16];
+    private final int[][] stack  = new int[MAX_DEPTH][];
+    private       int     blockLength;
+    private       int     blocksCompressed;
+    private       long    chunkCounter;
+    private       int     depth;
+
+    /**
+     * @param length - the default digest length in bytes
+     */
+    Blake3Engine(int length) {
+        this.length = length;
+        reset();
+    }
+
+    /**
+     * Restore the engine from the encoded state of an engine of the digest length
+     */
+    Blake3Engine(int length, byte[] state) {
+        this(length);
+        var in = ByteBuffer.wrap(state);
+        if (state.length < 1 + 8 + 32 + 2 || in.get() != (byte) length) {
+            throw new IllegalArgumentException("Invalid BLAKE3 state");
+        }
+        chunkCounter = in.getLong();
+        for (int i = 0; i < 8; i++) {
+            cv[i] = in.getInt();
+        }
+        blocksCompressed = in.get() & 0xFF;
+        blockLength = in.get() & 0xFF;
+        if (chunkCounter < 0 || blocksCompressed >= CHUNK_LEN / BLOCK_LEN || blockLength > BLOCK_LEN
+        || in.remaining() < blockLength + 1) {
+            throw new IllegalArgumentException("Invalid BLAKE3 state");
+        }
+        in.get(block, 0, blockLength);
+        depth = in.get() & 0xFF;
+        if (depth != Long.bitCount(chunkCounter) || in.remaining() != depth * 32) {
+            throw new IllegalArgumentException("Invalid BLAKE3 state");
+        }
+        for (int d = 0; d < depth; d++) {
+            stack[d] = new int[8];
+            for (int i = 0; i < 8; i++) {
+                stack[d][i] = in.getInt();
+            }
+        }
+    }
+
+    @Override
+    public int doFinal(byte[] out, int outOff) {
+        return doFinal(out, outOff, length);
+    }
+
+    @Override
+    public int doFinal(byte[] out, int outOff, int outLen) {
+        var output = new Output();
+        chunkOutput(output);
+        for (int d = depth - 1; d >= 0; d--) {
+            parent(stack[d], chainingValue(output), IV, output);
+        }
+        System.arraycopy(output.root(outLen), 0, out, outOff, outLen);
+        reset();
+        return outLen;
+    }
+
+    @Override
+    public int doOutput(byte[] out, int outOff, int outLen) {
+        throw new UnsupportedOperationException("Incremental output not supported");
+    }
+
+    @Override
+    public String getAlgorithmName() {
+        return "BLAKE3";
+    }
+
+    @Override
+    public int getByteLength() {
+        return BLOCK_LEN;
+    }
+
+    @Override
+    public int getDigestSize() {
+        return length;
+    }
+
+    @Override
+    public byte[] getEncodedState() {
+        var state = ByteBuffer.allocate(1 + 8 + 32 + 2 + blockLength + 1 + depth * 32);
+        state.put((byte) length).putLong(chunkCounter);
+        for (var word : cv) {
+            state.putInt(word);
+        }
+        state.put((byte) blocksCompressed).put((byte) blockLength).put(block, 0, blockLength).put((byte) depth);
+        for (int d = 0; d < depth; d++) {
+            for (var word : stack[d]) {
+                state.putInt(word);
+            }
+        }
+        return state.array();
+    }
+
+    @Override
+    public void reset() {
+        chunkCounter = 0;
+        depth = 0;
+        Arrays.fill(stack, null);
+        startChunk();
+    }
+
+    @Override
+    public void update(byte in) {
+        prepare();
+        block[blockLength++] = in;
+    }
+
+    @Override
+    public void update(byte[] in, int inOff, int len) {
+        while (len > 0) {
+            prepare();
+            var take = Math.min(BLOCK_LEN - blockLength, len);
+            System.arraycopy(in, inOff, block, blockLength, take);
+            blockLength += take;
+            inOff += take;
+            len -= take;
+        }
+    }
+
+    /**
+     * Push the chaining value of the completed chunk, first merging the completed subtrees it finishes
+     */
+    private void addChunk(int[] chunkCv, long totalChunks) {
+        var output = new Output();
+        while ((totalChunks & 1) == 0) {
+            parent(stack[--depth], chunkCv, IV, output);
+            chunkCv = chainingValue(output);
+            totalChunks >>>= 1;
+        }
+        stack[depth++] = chunkCv;
+    }
+
+    private void chunkOutput(Output output) {
+        var words = new int[16];
+        for (int i = 0; i < blockLength; i++) {
+            words[i >> 2] |= (block[i] & 0xFF) << ((i & 3) << 3);
+        }
+        output.cv = cv.clone();
+        output.block = words;
+        output.counter = chunkCounter;
+        output.blockLength = blockLength;
+        output.flags = (blocksCompressed == 0 ? CHUNK_START : 0) | CHUNK_END;
+    }
+
+    /**
+     * Make room in the block for more input. The final block of a chunk and the final chunk of the input are only
+     * compressed once more input arrives, as they are compressed with different flags if none does
+     */
+    private void prepare() {
+        if (blocksCompressed * BLOCK_LEN + blockLength == CHUNK_LEN) {
+            var output = new Output();
+            chunkOutput(output);
+            addChunk(chainingValue(output), ++chunkCounter);
+            startChunk();
+        } else if (blockLength == BLOCK_LEN) {
+            for (int i = 0; i < 16; i++) {
+                var o = i << 2;
+                m[i] = (block[o] & 0xFF) | (block[o + 1] & 0xFF) << 8 | (block[o + 2] & 0xFF) << 16
+                | block[o + 3] << 24;
+            }
+            compress(cv, m, chunkCounter, BLOCK_LEN, blocksCompressed == 0 ? CHUNK_START : 0, out);
+            System.arraycopy(out, 0, cv, 0, 8);
+            blocksCompressed++;
+            blockLength = 0;
+        }
+    }
+
+    private void startChunk() {
+        System.arraycopy(IV, 0, cv, 0, 8);
+        blockLength = 0;
+        blocksCompressed = 0;
+    }
+}
@@ -0,0 +1,249 @@
+/*
+ * Copyright (C) 2023 Hal Hildebrand. All rights reserved.
+ */
+package com.hellblazer.cryptography.hash;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Content defined chunking of byte streams, using a buzhash over a rolling window of the last {@link #WINDOW} bytes
+ * with the mixing table of {@link BUZ}. A chunk boundary is declared where the low bits of the rolling hash are zero,
+ * so boundaries depend only on the local content and an insertion or deletion disturbs only the chunks around it.
+ * Chunks are never shorter than the minimum size, except for the last, and are cut at the maximum size if no boundary
+ * is found. The expected chunk size is roughly the average size.
+ * <p>
+ * Boundary scanning reads the buffer with absolute gets and does not allocate, so it runs directly over heap, direct
+ * and mapped buffers. Files are mapped in windows, so their size is not limited to that of a single mapping. Each chunk
+ * is digested with the supplied DigestAlgorithm. Chunkers are immutable and thread safe.
+ *
+ * @author hal.hildebrand
+ */
+public class Chunker {
+    public static final int WINDOW = 64;
+
+    private static final long MAP_WINDOW = 64 * 1024 * 1024;
+
+    private final int  average;
+    private final long mask;
+    private final int  max;
+    private final int  min;
+
+    /**
+     * @param min     - the minimum chunk size, at least the WINDOW
+     * @param average - the average chunk size, greater than the minimum
+     * @param max     - the maximum chunk size, at least the average
+     */
+    public Chunker(int min, int average, int max) {
+        if (min < WINDOW) {
+            throw new IllegalArgumentException("Minimum chunk size must be at least: " + WINDOW + ", found: " + min);
+        }
+        if (average <= min || max < average || max > MAP_WINDOW / 2) {
+            throw new IllegalArgumentException(
+            "Invalid chunk sizes, min: " + min + " average: " + average + " max: " + max);
+        }
+        this.min = min;
+        this.average = average;
+        this.max = max;
+        // boundaries are expected every 2^bits bytes past the minimum
+        this.mask = Integer.highestOneBit(average - min) - 1;
+    }
+
+    /**
+     * Answer the chunks of the remaining bytes of the buffer. The buffer's position is advanced to its limit, and the
+     * offsets of the chunks are relative to the buffer's original position
+     */
+    public List<Chunk> chunk(ByteBuffer buffer, DigestAlgorithm algorithm) {
+        var chunks = new ArrayList<Chunk>();
+        var start = buffer.position();
+        chunk(buffer, start, buffer.limit(), buffer.limit(), algorithm, -start, chunks);
+        buffer.position(buffer.limit());
+        return chunks;
+    }
+
+    /**
+     * Answer the chunks of the length bytes of the channel starting at the offset. The offsets of the chunks are
+     * positions in the channel
+     */
+    public List<Chunk> chunk(FileChannel channel, long offset, long length, DigestAlgorithm algorithm) {
+        return chunk(channel, offset, length, algorithm, MAP_WINDOW);
+    }
+
+    /**
+     * Answer the chunks of the remaining bytes of the stream. The offsets of the chunks are relative to the stream's
+     * current position
+     */
+    public List<Chunk> chunk(InputStream is, DigestAlgorithm algorithm) {
+        var chunks = new ArrayList<Chunk>();
+        var bytes = new byte[Math.max(2 * max, 64 * 1024)];
+        var buffer = ByteBuffer.wrap(bytes);
+        long position = 0;
+        int filled = 0;
+        boolean eof = false;
+        try {
+            while (!eof || filled > 0) {
+                while (!eof && filled < bytes.length) {
+                    var read = is.read(bytes, filled, bytes.length - filled);
+                    if (read < 0) {
+                        eof = true;
+                    } else {
+                        filled += read;
+                    }
+                }
+                var consumed = chunk(buffer, 0, eof ? filled : filled - max, filled, algorithm, position, chunks);
+                System.arraycopy(bytes, consumed, bytes, 0, filled - consumed);
+                filled -= consumed;
+                position += consumed;
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Error reading from stream, cannot generate chunks", e);
+        }
+        return chunks;
+    }
+
+    /**
+     * Answer the chunks of the file
+     */
+    public List<Chunk> chunk(Path path, DigestAlgorithm algorithm) {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return chunk(channel, 0, channel.size(), algorithm);
+        } catch (IOException e) {
+            throw new IllegalStateException("Error reading from file: " + path + ", cannot generate chunks", e);
+        }
+    }
+
+    public int getAverage() {
+        return average;
+    }
+
+    public int getMax() {
+        return max;
+    }
+
+    public int getMin() {
+        return min;
+    }
+
+    /**
+     * Answer the end of the chunk starting at the index from, scanning no further than the index to. The scan uses
+     * absolute gets, leaving the buffer's position unchanged, and does not allocate
+     *
+     * @return the exclusive end index of the chunk
+     */
+    public int next(ByteBuffer buffer, int from, int to) {
+        if (to - from <= min) {
+            return to;
+        }
+        var limit = (int) Math.min(to, (long) from + max);
+        var h = BUZ.buzhash(buffer, from + min - WINDOW, from + min);
+        for (int i = from + min; i < limit; i++) {
+            if ((h & mask) == 0) {
+                return i;
+            }
+            h = BUZ.roll(h, buffer.get(i - WINDOW), buffer.get(i), WINDOW);
+        }
+        return limit;
+    }
+
+    @Override
+    public String toString() {
+        return "Chunker[" + min + ":" + average + ":" + max + "]";
+    }
+
+    /**
+     * Answer the chunks of the channel, mapping it in windows of the supplied size
+     */
+    List<Chunk> chunk(FileChannel channel, long offset, long length, DigestAlgorithm algorithm, long window) {
+        var chunks = new ArrayList<Chunk>();
+        var end = offset + length;
+        try {
+            for (long position = offset; position < end; ) {
+                var size = (int) Math.min(window, end - position);
+                var mapped = channel.map(MapMode.READ_ONLY, position, size);
+                // stop short of the window's end unless it is the end of the file, so no chunk spans windows
+                var limit = position + size == end ? size : size - max;
+                position += chunk(mapped, 0, limit, size, algorithm, position, chunks);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Error reading from file, cannot generate chunks", e);
+        }
+        return chunks;
+    }
+
+    /**
+     * Chunk and digest the buffer from the index until a chunk would start at or beyond the limit, with no chunk
+     * extending past the end. Chunks are offset by the base
+     *
+     * @return the number of bytes chunked
+     */
+    private int chunk(ByteBuffer buffer, int from, int limit, int end, DigestAlgorithm algorithm, long base,
+                      List<Chunk> chunks) {
+        var slice = buffer.duplicate();
+        var start = from;
+        try (var hasher = algorithm.newHasher()) {
+            while (start < limit) {
+                var next = next(buffer, start, end);
+                slice.limit(next).position(start);
+                hasher.reset();
+                chunks.add(new Chunk(base + start, next - start, hasher.update(slice).finish()));
+                start = next;
+            }
+        }
+        return start - from;
+    }
+
+    /**
+     * A chunk of content, located by its offset and length
+     */
+    public static class Chunk {
+        private final Digest digest;
+        private final int    length;
+        private final long   offset;
+
+        public Chunk(long offset, int length, Digest digest) {
+            this.offset = offset;
+            this.length = length;
+            this.digest = digest;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Chunk other)) {
+                return false;
+            }
+            return offset == other.offset && length == other.length && digest.equals(other.digest);
+        }
+
+        public Digest getDigest() {
+            return digest;
+        }
+
+        public int getLength() {
+            return length;
+        }
+
+        public long getOffset() {
+            return offset;
+        }
+
+        @Override
+        public int hashCode() {
+            return digest.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return "Chunk[" + offset + ":" + length + " " + digest + "]";
+        }
+    }
+}
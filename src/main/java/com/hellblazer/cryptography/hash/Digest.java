@@ -8,10 +8,12 @@
  */
 package com.hellblazer.cryptography.hash;
 
+import com.google.protobuf.UnsafeByteOperations;
 import com.hellblazer.cryptography.bloomFilters.Hash;
 import com.hellblazer.cryptography.proto.Digest_;
 
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.HexFormat;
 import java.util.stream.Stream;
 
@@ -71,13 +73,30 @@ public class Digest implements Comparable<Digest> {
         this.hash = hash;
     }
 
+    /**
+     * Decode the compact or legacy form of the digest. The longs of the compact form are read directly from the
+     * message's bytes, without copying them
+     */
     public Digest(Digest_ d) {
         algorithm = DigestAlgorithm.fromDigestCode(d.getType());
-        assert d.getHashCount() == algorithm.longLength();
-        hash = new long[d.getHashCount()];
-        int i = 0;
-        for (long l : d.getHashList()) {
-            hash[i++] = l;
+        hash = new long[algorithm.longLength()];
+        if (!d.getBytes().isEmpty()) {
+            if (d.getBytes().size() != algorithm.digestLength()) {
+                throw new IllegalArgumentException(
+                "Invalid bytes length.  Require: " + algorithm.digestLength() + " found: " + d.getBytes().size());
+            }
+            var buffer = d.getBytes().asReadOnlyByteBuffer();
+            for (int i = 0; i < hash.length; i++) {
+                hash[i] = buffer.getLong();
+            }
+        } else {
+            if (d.getHashCount() != hash.length) {
+                throw new IllegalArgumentException(
+                "Invalid hash length.  Require: " + hash.length + " found: " + d.getHashCount());
+            }
+            for (int i = 0; i < hash.length; i++) {
+                hash[i] = d.getHash(i);
+            }
         }
     }
 
@@ -95,13 +114,8 @@ public class Digest implements Comparable<Digest> {
         if (o1.length != o2.length) {
             return o1.length - o2.length;
         }
-        for (int i = 0; i < o1.length; i++) {
-            final int diff = (o1[i] & 0xFF) - (o2[i] & 0xFF);
-            if (diff != 0) {
-                return diff;
-            }
-        }
-        return 0;
+        int i = Arrays.mismatch(o1, o2);
+        return i < 0 ? 0 : (o1[i] & 0xFF) - (o2[i] & 0xFF);
     }
 
     public static Digest from(Digest_ d) {
@@ -117,18 +131,40 @@ public class Digest implements Comparable<Digest> {
         return new Digest(digestAlgorithm, hash);
     }
 
+    /**
+     * Answer the unsigned sum of the big endian words, modulo 2^(64 * length)
+     */
+    private static long[] add(long[] a, long[] b) {
+        var sum = new long[a.length];
+        long carry = 0;
+        for (int i = a.length - 1; i >= 0; i--) {
+            var s = a[i] + b[i] + carry;
+            carry = Long.compareUnsigned(s, a[i]) < 0 || (carry == 1 && s == a[i]) ? 1 : 0;
+            sum[i] = s;
+        }
+        return sum;
+    }
+
+    /**
+     * Answer the sum of the receiver and the digest as unsigned integers, modulo 2^(digest bits)
+     */
+    public Digest add(Digest b) {
+        return new Digest(algorithm, add(hash, check(b).hash));
+    }
+
     @Override
     public int compareTo(Digest id) {
         if (id == this) {
             return 0;
         }
-        for (int i = 0; i < hash.length; i++) {
-            int compare = Long.compareUnsigned(hash[i], id.hash[i]);
-            if (compare != 0) {
-                return compare;
-            }
+        int i = Arrays.mismatch(hash, id.hash);
+        if (i < 0) {
+            return 0;
+        }
+        if (i == hash.length || i == id.hash.length) {
+            return Integer.compare(hash.length, id.hash.length);
         }
-        return 0;
+        return Long.compareUnsigned(hash[i], id.hash[i]);
     }
 
     public int digestCode() {
@@ -141,20 +177,20 @@ public class Digest implements Comparable<Digest> {
             return true;
         }
         if (obj instanceof Digest other) {
-            if (algorithm != other.algorithm) {
-                return false;
-            }
-
-            for (int i = 0; i < hash.length; i++) {
-                if (hash[i] != other.hash[i]) {
-                    return false;
-                }
-            }
-            return true;
+            return algorithm == other.algorithm && Arrays.equals(hash, other.hash);
         }
         return false;
     }
 
+    /**
+     * Answer count digests derived from the receiver in a single pass of its algorithm's extendable output
+     *
+     * @see DigestAlgorithm#xof(int, ByteBuffer...)
+     */
+    public Digest[] expand(int count) {
+        return algorithm.xof(count, toByteBuffer());
+    }
+
     public long fold() {
         long folded = 0;
         for (var l : hash) {
@@ -203,6 +239,20 @@ public class Digest implements Comparable<Digest> {
         return hashCode = 31;
     }
 
+    /**
+     * Answer the midpoint of the receiver and the digest as unsigned integers, rounded down
+     */
+    public Digest midpoint(Digest b) {
+        check(b);
+        var and = new long[hash.length];
+        var half = new long[hash.length];
+        for (int i = 0; i < hash.length; i++) {
+            and[i] = hash[i] & b.hash[i];
+            half[i] = ((hash[i] ^ b.hash[i]) >>> 1) | (i == 0 ? 0 : (hash[i - 1] ^ b.hash[i - 1]) << 63);
+        }
+        return new Digest(algorithm, add(and, half));
+    }
+
     public Digest prefix(byte[]... prefixes) {
         int prefixLength = 0;
         for (byte[] p : prefixes) {
@@ -255,6 +305,22 @@ public class Digest implements Comparable<Digest> {
         return prefix(prefix.getBytes());
     }
 
+    /**
+     * Answer the digests of the receiver for the rings [0, rings) of the id, derived in a single pass of the
+     * algorithm's extendable output. These differ from the corresponding {@link #prefix(Digest, int)}, which hashes
+     * once per ring
+     */
+    public Digest[] prefixes(Digest id, int rings) {
+        ByteBuffer buffer = ByteBuffer.allocate((id.hash.length + hash.length) * 8);
+        for (long prefix : id.hash) {
+            buffer.putLong(prefix);
+        }
+        for (long h : hash) {
+            buffer.putLong(h);
+        }
+        return algorithm.xof(rings, buffer.flip());
+    }
+
     public Digest rehash() {
         ByteBuffer buffer = ByteBuffer.allocate(hash.length * 8);
         for (long h : hash) {
@@ -270,10 +336,37 @@ public class Digest implements Comparable<Digest> {
         return hexString.substring(0, Math.min(hexString.length(), 16));
     }
 
+    /**
+     * Answer the difference of the receiver and the digest as unsigned integers, modulo 2^(digest bits)
+     */
+    public Digest subtract(Digest b) {
+        check(b);
+        var difference = new long[hash.length];
+        long borrow = 0;
+        for (int i = hash.length - 1; i >= 0; i--) {
+            var a = hash[i];
+            var c = b.hash[i];
+            difference[i] = a - c - borrow;
+            borrow = Long.compareUnsigned(a, c) < 0 || (borrow == 1 && a == c) ? 1 : 0;
+        }
+        return new Digest(algorithm, difference);
+    }
+
     public ByteBuffer toByteBuffer() {
         return ByteBuffer.wrap(getBytes());
     }
 
+    /**
+     * Answer the compact form of the receiver, carrying the bytes of the digest. Only readers that decode the bytes
+     * field accept the compact form; older readers see an empty digest
+     */
+    public Digest_ toCompactDigeste() {
+        return Digest_.newBuilder()
+                      .setType(algorithm.digestCode())
+                      .setBytes(UnsafeByteOperations.unsafeWrap(getBytes()))
+                      .build();
+    }
+
     public Digest_ toDigeste() {
         var builder = Digest_.newBuilder().setType(algorithm.digestCode());
         for (long l : hash) {
@@ -299,4 +392,11 @@ public class Digest implements Comparable<Digest> {
         }
         return new Digest(algorithm, xord);
     }
+
+    private Digest check(Digest b) {
+        if (algorithm != b.algorithm) {
+            throw new IllegalArgumentException("Cannot combine digests of different algorithms");
+        }
+        return b;
+    }
 }
@@ -7,18 +7,31 @@
 package com.hellblazer.cryptography.hash;
 
 import com.google.protobuf.ByteString;
-import com.hellblazer.cryptography.BbBackedInputStream;
+import com.google.protobuf.MessageLite;
 import com.hellblazer.cryptography.Entropy;
 import org.bouncycastle.crypto.digests.Blake2bDigest;
 import org.bouncycastle.crypto.digests.Blake2sDigest;
 import org.bouncycastle.crypto.digests.Blake3Digest;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.digests.SHA512Digest;
+import org.bouncycastle.crypto.params.Blake3Parameters;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 
 /**
  * Enumerations of digest algorithms
@@ -39,30 +52,19 @@ public enum DigestAlgorithm {
         }
 
         @Override
-        public byte[] hashOf(byte[] bytes, int len) {
-            final int dl = digestLength();
-            Blake2bDigest digester = new Blake2bDigest(dl * 8);
-            digester.update(bytes, 0, len);
-            byte[] digest = new byte[dl];
-            digester.doFinal(digest, 0);
-            return digest;
+        Hasher createHasher() {
+            return new Hasher.BcHasher(this, new Blake2bDigest(digestLength() * 8));
         }
 
         @Override
-        public byte[] hashOf(InputStream is) {
-            final int dl = digestLength();
-            Blake2bDigest digester = new Blake2bDigest(dl * 8);
-            byte[] digest = new byte[dl];
-            byte[] buf = new byte[dl];
-            try {
-                for (int read = is.read(buf); read >= 0; read = is.read(buf)) {
-                    digester.update(buf, 0, read);
-                }
-            } catch (IOException e) {
-                throw new IllegalStateException("Error reading from buffers, cannot generate hash", e);
-            }
-            digester.doFinal(digest, 0);
-            return digest;
+        Hasher createMac(byte[] key) {
+            return new Hasher.BcHasher(this, new Blake2bDigest(key, digestLength(), null, null), true);
+        }
+
+        @Override
+        Hasher createResumable(byte[] state) {
+            return new Hasher.ResumableHasher(this, state == null ? new Blake2bEngine(digestLength())
+                                                                  : new Blake2bEngine(digestLength(), state));
         }
 
     }, BLAKE2B_512 {
@@ -77,31 +79,21 @@ public enum DigestAlgorithm {
         }
 
         @Override
-        public byte[] hashOf(byte[] bytes, int len) {
-            final int dl = digestLength();
-            Blake2bDigest digester = new Blake2bDigest(dl * 8);
-            digester.update(bytes, 0, len);
-            byte[] digest = new byte[dl];
-            digester.doFinal(digest, 0);
-            return digest;
+        Hasher createHasher() {
+            return new Hasher.BcHasher(this, new Blake2bDigest(digestLength() * 8));
         }
 
         @Override
-        public byte[] hashOf(InputStream is) {
-            final int dl = digestLength();
-            Blake2bDigest digester = new Blake2bDigest(dl * 8);
-            byte[] digest = new byte[dl];
-            byte[] buf = new byte[dl];
-            try {
-                for (int read = is.read(buf); read >= 0; read = is.read(buf)) {
-                    digester.update(buf, 0, read);
-                }
-            } catch (IOException e) {
-                throw new IllegalStateException("Error reading from buffers, cannot generate hash", e);
-            }
-            digester.doFinal(digest, 0);
-            return digest;
+        Hasher createMac(byte[] key) {
+            return new Hasher.BcHasher(this, new Blake2bDigest(key, digestLength(), null, null), true);
         }
+
+        @Override
+        Hasher createResumable(byte[] state) {
+            return new Hasher.ResumableHasher(this, state == null ? new Blake2bEngine(digestLength())
+                                                                  : new Blake2bEngine(digestLength(), state));
+        }
+
     }, BLAKE2S_256 {
         @Override
         public byte digestCode() {
@@ -114,30 +106,19 @@ public enum DigestAlgorithm {
         }
 
         @Override
-        public byte[] hashOf(byte[] bytes, int len) {
-            final int dl = digestLength();
-            Blake2sDigest digester = new Blake2sDigest(dl * 8);
-            digester.update(bytes, 0, len);
-            byte[] digest = new byte[dl];
-            digester.doFinal(digest, 0);
-            return digest;
+        Hasher createHasher() {
+            return new Hasher.BcHasher(this, new Blake2sDigest(digestLength() * 8));
         }
 
         @Override
-        public byte[] hashOf(InputStream is) {
-            final int dl = digestLength();
-            Blake2sDigest digester = new Blake2sDigest(dl * 8);
-            byte[] digest = new byte[dl];
-            byte[] buf = new byte[dl];
-            try {
-                for (int read = is.read(buf); read >= 0; read = is.read(buf)) {
-                    digester.update(buf, 0, read);
-                }
-            } catch (IOException e) {
-                throw new IllegalStateException("Error reading from buffers, cannot generate hash", e);
-            }
-            digester.doFinal(digest, 0);
-            return digest;
+        Hasher createMac(byte[] key) {
+            return new Hasher.BcHasher(this, new Blake2sDigest(key, digestLength(), null, null), true);
+        }
+
+        @Override
+        Hasher createResumable(byte[] state) {
+            return new Hasher.ResumableHasher(this, state == null ? new Blake2sEngine(digestLength())
+                                                                  : new Blake2sEngine(digestLength(), state));
         }
 
     }, BLAKE3_256 {
@@ -152,31 +133,45 @@ public enum DigestAlgorithm {
         }
 
         @Override
-        public byte[] hashOf(byte[] bytes, int len) {
-            final int dl = digestLength();
-            Blake3Digest digester = new Blake3Digest(dl);
-            digester.update(bytes, 0, len);
-            byte[] digest = new byte[dl];
-            digester.doFinal(digest, 0);
-            return digest;
+        public byte[] hashOf(FileChannel channel, long offset, long length) {
+            checkRegion(offset, length);
+            return Blake3.hash(channel, offset, length, digestLength(), false);
         }
 
         @Override
-        public byte[] hashOf(InputStream is) {
-            final int dl = digestLength();
-            Blake3Digest digester = new Blake3Digest(dl);
-            byte[] digest = new byte[dl];
-            byte[] buf = new byte[dl];
-            try {
-                for (int read = is.read(buf); read >= 0; read = is.read(buf)) {
-                    digester.update(buf, 0, read);
-                }
-            } catch (IOException e) {
-                throw new IllegalStateException("Error reading from buffers, cannot generate hash", e);
-            }
-            digester.doFinal(digest, 0);
-            return digest;
+        public byte[] parallelHashOf(ByteBuffer buffer) {
+            return Blake3.hash(buffer, digestLength(), true);
+        }
+
+        @Override
+        public byte[] parallelHashOf(FileChannel channel, long offset, long length) {
+            checkRegion(offset, length);
+            return Blake3.hash(channel, offset, length, digestLength(), true);
+        }
+
+        @Override
+        Hasher createHasher() {
+            return new Hasher.BcHasher(this, new Blake3Digest(digestLength()));
+        }
+
+        @Override
+        Hasher createMac(byte[] key) {
+            var digester = new Blake3Digest(digestLength());
+            digester.init(Blake3Parameters.key(key));
+            return new Hasher.BcHasher(this, digester, true);
+        }
+
+        @Override
+        Hasher createResumable(byte[] state) {
+            return new Hasher.ResumableHasher(this, state == null ? new Blake3Engine(digestLength())
+                                                                  : new Blake3Engine(digestLength(), state));
         }
+
+        @Override
+        Digest[] expand(Hasher hasher, int count) {
+            return split(hasher.doFinal(Math.multiplyExact(count, digestLength())));
+        }
+
     }, BLAKE3_512 {
         @Override
         public byte digestCode() {
@@ -189,31 +184,45 @@ public enum DigestAlgorithm {
         }
 
         @Override
-        public byte[] hashOf(byte[] bytes, int len) {
-            final int dl = digestLength();
-            Blake3Digest digester = new Blake3Digest(dl * 8);
-            digester.update(bytes, 0, len);
-            var digest = new byte[dl];
-            digester.doFinal(digest, 0);
-            return digest;
+        public byte[] hashOf(FileChannel channel, long offset, long length) {
+            checkRegion(offset, length);
+            return Blake3.hash(channel, offset, length, digestLength(), false);
         }
 
         @Override
-        public byte[] hashOf(InputStream is) {
-            final int dl = digestLength();
-            Blake3Digest digester = new Blake3Digest(dl * 8);
-            byte[] buf = new byte[dl];
-            try {
-                for (int read = is.read(buf); read >= 0; read = is.read(buf)) {
-                    digester.update(buf, 0, read);
-                }
-            } catch (IOException e) {
-                throw new IllegalStateException("Error reading from buffers, cannot generate hash", e);
-            }
-            var digest = new byte[dl];
-            digester.doFinal(digest, 0);
-            return digest;
+        public byte[] parallelHashOf(ByteBuffer buffer) {
+            return Blake3.hash(buffer, digestLength(), true);
+        }
+
+        @Override
+        public byte[] parallelHashOf(FileChannel channel, long offset, long length) {
+            checkRegion(offset, length);
+            return Blake3.hash(channel, offset, length, digestLength(), true);
+        }
+
+        @Override
+        Hasher createHasher() {
+            return new Hasher.BcHasher(this, new Blake3Digest(digestLength() * 8));
         }
+
+        @Override
+        Hasher createMac(byte[] key) {
+            var digester = new Blake3Digest(digestLength() * 8);
+            digester.init(Blake3Parameters.key(key));
+            return new Hasher.BcHasher(this, digester, true);
+        }
+
+        @Override
+        Hasher createResumable(byte[] state) {
+            return new Hasher.ResumableHasher(this, state == null ? new Blake3Engine(digestLength())
+                                                                  : new Blake3Engine(digestLength(), state));
+        }
+
+        @Override
+        Digest[] expand(Hasher hasher, int count) {
+            return split(hasher.doFinal(Math.multiplyExact(count, digestLength())));
+        }
+
     }, NONE {
         @Override
         public byte digestCode() {
@@ -225,6 +234,16 @@ public enum DigestAlgorithm {
             return 0;
         }
 
+        @Override
+        Hasher createHasher() {
+            return new Hasher.NullHasher(this);
+        }
+
+        @Override
+        Hasher createMac(byte[] key) {
+            return new Hasher.NullHasher(this);
+        }
+
         @Override
         public Digest getLast() {
             return new Digest(this, EMPTY);
@@ -240,11 +259,22 @@ public enum DigestAlgorithm {
             return EMPTY;
         }
 
+        @Override
+        public byte[] hashOf(FileChannel channel, long offset, long length) {
+            checkRegion(offset, length);
+            return EMPTY;
+        }
+
         @Override
         public byte[] hashOf(InputStream is) {
             return EMPTY;
         }
     }, SHA2_256 {
+        @Override
+        public String algorithmName() {
+            return "SHA-256";
+        }
+
         @Override
         public byte digestCode() {
             return 6;
@@ -255,9 +285,25 @@ public enum DigestAlgorithm {
             return 32;
         }
 
+        @Override
+        Hasher createMac(byte[] key) {
+            return new Hasher.MacHasher(this, "HmacSHA256", key);
+        }
+
+        @Override
+        Hasher createResumable(byte[] state) {
+            return new Hasher.ResumableHasher(this, state == null ? new SHA256Digest()
+                                                                  : new SHA256Digest(state));
+        }
+
     },
 
     SHA2_512 {
+        @Override
+        public String algorithmName() {
+            return "SHA-512";
+        }
+
         @Override
         public byte digestCode() {
             return 7;
@@ -268,9 +314,25 @@ public enum DigestAlgorithm {
             return 64;
         }
 
+        @Override
+        Hasher createMac(byte[] key) {
+            return new Hasher.MacHasher(this, "HmacSHA512", key);
+        }
+
+        @Override
+        Hasher createResumable(byte[] state) {
+            return new Hasher.ResumableHasher(this, state == null ? new SHA512Digest()
+                                                                  : new SHA512Digest(state));
+        }
+
     },
 
     SHA3_256 {
+        @Override
+        public String algorithmName() {
+            return "SHA3-256";
+        }
+
         @Override
         public byte digestCode() {
             return 8;
@@ -281,7 +343,17 @@ public enum DigestAlgorithm {
             return 32;
         }
 
+        @Override
+        Hasher createMac(byte[] key) {
+            return new Hasher.MacHasher(this, "HmacSHA3-256", key);
+        }
+
     }, SHA3_512 {
+        @Override
+        public String algorithmName() {
+            return "SHA3-512";
+        }
+
         @Override
         public byte digestCode() {
             return 9;
@@ -289,20 +361,35 @@ public enum DigestAlgorithm {
 
         @Override
         public int digestLength() {
-            return 32;
+            return 64;
+        }
+
+        @Override
+        Hasher createMac(byte[] key) {
+            return new Hasher.MacHasher(this, "HmacSHA3-512", key);
         }
 
     };
 
-    public static final DigestAlgorithm DEFAULT           = BLAKE2B_256;
-    public static final long            MAX_UNSIGNED_LONG = -1L;
+    public static final DigestAlgorithm DEFAULT            = BLAKE2B_256;
+    public static final long            MAX_UNSIGNED_LONG  = -1L;
+    /**
+     * The default minimum batch size for which digestAll spreads the work across the fork join pool
+     */
+    public static final int             PARALLEL_THRESHOLD = 1024;
     private static final byte[]                   EMPTY          = new byte[0];
     private static final long[]                   LAST_32        = new long[4];
     private static final long[]                   LAST_64        = new long[8];
+    private static final long                     MAP_WINDOW     = 64 * 1024 * 1024;
+    private static final int                      MAX_POOLED     = 4 * Runtime.getRuntime().availableProcessors();
+    private static final int                      MIN_BATCH      = 64;
     private static final ThreadLocal<DigestCache> MESSAGE_DIGEST = ThreadLocal.withInitial(() -> new DigestCache());
     private static final long[]                   ORIGIN_32      = new long[4];
     private static final long[]                   ORIGIN_64      = new long[8];
 
+    private final Queue<Hasher> pool   = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pooled = new AtomicInteger();
+
     static {
         Arrays.fill(LAST_32, MAX_UNSIGNED_LONG);
         Arrays.fill(LAST_64, MAX_UNSIGNED_LONG);
@@ -335,6 +422,12 @@ public enum DigestAlgorithm {
         };
     }
 
+    private static void checkRegion(long offset, long length) {
+        if (offset < 0 || length < 0 || offset > Long.MAX_VALUE - length) {
+            throw new IllegalArgumentException("Invalid region, offset: " + offset + " length: " + length);
+        }
+    }
+
     public String algorithmName() {
         return name();
     }
@@ -359,14 +452,82 @@ public enum DigestAlgorithm {
         return new Digest(this, hashOf(buffers));
     }
 
+    /**
+     * Answer the digest of the region of the file. The region is mapped into memory in large windows that are handed
+     * directly to the digest engine
+     *
+     * @param channel - the file
+     * @param offset  - the offset of the region in the file
+     * @param length  - the length of the region
+     */
+    public Digest digest(FileChannel channel, long offset, long length) {
+        return new Digest(this, hashOf(channel, offset, length));
+    }
+
     public Digest digest(List<ByteBuffer> buffers) {
-        return digest(BbBackedInputStream.aggregate(buffers));
+        return new Digest(this, hashOf(buffers));
+    }
+
+    /**
+     * Answer the digest of the serialized bytes of the message, which are encoded directly into the digest engine
+     * without building an intermediate byte array
+     */
+    public Digest digest(MessageLite message) {
+        return new Digest(this, hashOf(message));
+    }
+
+    /**
+     * Answer the digest of the file, which is mapped into memory in large windows that are handed directly to the digest
+     * engine
+     */
+    public Digest digest(Path path) {
+        return new Digest(this, hashOf(path));
     }
 
     public Digest digest(String key) {
         return digest(key.getBytes());
     }
 
+    /**
+     * Answer the digests of the messages, in order, using the default parallel threshold
+     */
+    public Digest[] digestAll(List<byte[]> messages) {
+        return digestAll(messages, PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * Answer the digests of the messages, in order. Batches of at least <code>threshold</code> messages are split
+     * across the common fork join pool, with each worker reusing its own digest engine
+     *
+     * @param messages  - the messages to digest
+     * @param threshold - the minimum number of messages for which the batch is hashed in parallel
+     * @return the array of digests, corresponding to the messages
+     */
+    public Digest[] digestAll(List<byte[]> messages, int threshold) {
+        return digestAll(messages, threshold, (hasher, message) -> hasher.update(message, 0, message.length));
+    }
+
+    /**
+     * Answer the digests of the remaining bytes of the buffers, in order, using the default parallel threshold. Each
+     * buffer's position is advanced to its limit
+     */
+    public Digest[] digestAllBuffers(List<ByteBuffer> messages) {
+        return digestAllBuffers(messages, PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * Answer the digests of the remaining bytes of the buffers, in order. Batches of at least <code>threshold</code>
+     * buffers are split across the common fork join pool, with each worker reusing its own digest engine. Each buffer's
+     * position is advanced to its limit
+     *
+     * @param messages  - the buffers to digest
+     * @param threshold - the minimum number of buffers for which the batch is hashed in parallel
+     * @return the array of digests, corresponding to the buffers
+     */
+    public Digest[] digestAllBuffers(List<ByteBuffer> messages, int threshold) {
+        return digestAll(messages, threshold, (hasher, message) -> hasher.update(message));
+    }
+
     abstract public byte digestCode();
 
     abstract public int digestLength();
@@ -380,50 +541,231 @@ public enum DigestAlgorithm {
     }
 
     public byte[] hashOf(byte[]... buffers) {
-        InputStream is = BbBackedInputStream.aggregate(buffers);
-        return hashOf(is);
+        var hasher = lookupHasher();
+        hasher.reset();
+        for (var buffer : buffers) {
+            hasher.update(buffer, 0, buffer.length);
+        }
+        return hasher.doFinal();
     }
 
     public byte[] hashOf(byte[] bytes, int len) {
-        MessageDigest md = lookupJCA();
-        md.reset();
-        md.update(bytes, 0, len);
-        return md.digest();
+        var hasher = lookupHasher();
+        hasher.reset();
+        hasher.update(bytes, 0, len);
+        return hasher.doFinal();
     }
 
+    /**
+     * Answer the hash of the remaining bytes of the buffers. Heap and direct buffers are fed directly to the digest
+     * engine, and each buffer's position is advanced to its limit.
+     */
     public byte[] hashOf(ByteBuffer... buffers) {
-        InputStream is = BbBackedInputStream.aggregate(buffers);
-        return hashOf(is);
+        var hasher = lookupHasher();
+        hasher.reset();
+        for (var buffer : buffers) {
+            hasher.update(buffer);
+        }
+        return hasher.doFinal();
     }
 
     public byte[] hashOf(ByteString... byteString) {
-        InputStream is = BbBackedInputStream.aggregate(byteString);
-        return hashOf(is);
+        var hasher = lookupHasher();
+        hasher.reset();
+        for (var bs : byteString) {
+            hasher.update(bs);
+        }
+        return hasher.doFinal();
     }
 
-    public byte[] hashOf(InputStream is) {
-        MessageDigest md = lookupJCA();
-        md.reset();
-        byte[] buf = new byte[md.getDigestLength()];
-        try {
-            for (int read = is.read(buf); read >= 0; read = is.read(buf)) {
-                md.update(buf, 0, read);
+    /**
+     * Answer the hash of the region of the file. The region is mapped into memory in large windows that are handed
+     * directly to the digest engine
+     *
+     * @param channel - the file
+     * @param offset  - the offset of the region in the file
+     * @param length  - the length of the region
+     * @throws IllegalArgumentException if the offset or length is negative, or the region extends past
+     *                                  Long.MAX_VALUE
+     */
+    public byte[] hashOf(FileChannel channel, long offset, long length) {
+        checkRegion(offset, length);
+        try (var hasher = newHasher()) {
+            for (long position = offset, end = offset + length; position < end; position += MAP_WINDOW) {
+                hasher.update(channel.map(MapMode.READ_ONLY, position, Math.min(MAP_WINDOW, end - position)));
             }
+            return hasher.doFinal();
         } catch (IOException e) {
-            throw new IllegalStateException("Error reading from buffers, cannot generate hash", e);
+            throw new IllegalStateException("Error reading from file, cannot generate hash", e);
+        }
+    }
+
+    public byte[] hashOf(InputStream is) {
+        try (var hasher = newHasher()) {
+            return hasher.update(is).doFinal();
         }
-        return md.digest();
     }
 
+    /**
+     * Answer the hash of the remaining bytes of the buffers. Heap and direct buffers are fed directly to the digest
+     * engine, and each buffer's position is advanced to its limit.
+     */
     public byte[] hashOf(List<ByteBuffer> buffers) {
-        InputStream is = BbBackedInputStream.aggregate(buffers);
-        return hashOf(is);
+        var hasher = lookupHasher();
+        hasher.reset();
+        for (int i = 0; i < buffers.size(); i++) {
+            hasher.update(buffers.get(i));
+        }
+        return hasher.doFinal();
+    }
+
+    /**
+     * Answer the hash of the serialized bytes of the message, which are encoded directly into the digest engine
+     * without building an intermediate byte array
+     */
+    public byte[] hashOf(MessageLite message) {
+        var hasher = lookupHasher();
+        hasher.reset();
+        return hasher.update(message).doFinal();
+    }
+
+    /**
+     * Answer the hash of the file, which is mapped into memory in large windows that are handed directly to the digest
+     * engine
+     */
+    public byte[] hashOf(Path path) {
+        return withChannel(path, channel -> hashOf(channel, 0, channel.size()));
     }
 
     public int longLength() {
         return digestLength() / 8;
     }
 
+    /**
+     * Answer the MAC of the remaining bytes of the buffers under the key. Each buffer's position is advanced to its
+     * limit
+     *
+     * @see #newMac(byte[])
+     */
+    public Digest mac(byte[] key, ByteBuffer... buffers) {
+        var hasher = newMac(key);
+        for (var buffer : buffers) {
+            hasher.update(buffer);
+        }
+        return hasher.finish();
+    }
+
+    /**
+     * Answer a streaming Hasher for the receiver. Hashers are drawn from a pool of digest engines maintained per
+     * algorithm; closing the Hasher returns its engine to the pool.
+     *
+     * @return the Hasher, initialized and ready for updates
+     */
+    public Hasher newHasher() {
+        var hasher = pool.poll();
+        if (hasher == null) {
+            return createHasher();
+        }
+        pooled.decrementAndGet();
+        hasher.reissue();
+        return hasher;
+    }
+
+    /**
+     * Answer a streaming keyed Hasher for the receiver, computing a MAC of the bytes supplied. The BLAKE algorithms use
+     * their native keyed mode, hashing the input in a single pass; the SHA algorithms fall back to HMAC. A MAC Hasher
+     * retains its key across {@link Hasher#finish()} and {@link Hasher#reset()}, so may be reused for any number of
+     * messages. MAC Hashers are never pooled.
+     *
+     * @param key - the key; up to 64 bytes for BLAKE2b, up to 32 bytes for BLAKE2s and exactly 32 bytes for BLAKE3
+     */
+    public Hasher newMac(byte[] key) {
+        if (key == null || key.length == 0) {
+            throw new IllegalArgumentException("MAC key must not be empty");
+        }
+        return createMac(key);
+    }
+
+    /**
+     * Answer a streaming Hasher for the receiver whose intermediate state may be exported with
+     * {@link Hasher#getState()}, and later resumed with {@link #resume(byte[])}. A digest of a log may thus be
+     * checkpointed, resumed after a restart and extended in time proportional to the appended bytes rather than the
+     * whole log. Supported by the BLAKE2, BLAKE3 and SHA2 algorithms; resumable Hashers are never pooled.
+     */
+    public Hasher newResumableHasher() {
+        return createResumable(null);
+    }
+
+    /**
+     * Answer the digest of the remaining bytes of the buffer, hashing large inputs in parallel where the algorithm
+     * supports it. The buffer's position is advanced to its limit
+     *
+     * @see #parallelHashOf(ByteBuffer)
+     */
+    public Digest parallelDigest(ByteBuffer buffer) {
+        return new Digest(this, parallelHashOf(buffer));
+    }
+
+    /**
+     * Answer the digest of the file, hashing each mapped window in parallel where the algorithm supports it
+     *
+     * @see #parallelHashOf(Path)
+     */
+    public Digest parallelDigest(Path path) {
+        return new Digest(this, parallelHashOf(path));
+    }
+
+    /**
+     * Answer the hash of the remaining bytes of the buffer, hashing large inputs in parallel where the algorithm
+     * supports it. The BLAKE3 algorithms compute chunks and subtrees across the common fork join pool, producing the
+     * identical result as the serial hash. Other algorithms are inherently serial and hash the buffer on the caller's
+     * thread. The buffer's position is advanced to its limit
+     */
+    public byte[] parallelHashOf(ByteBuffer buffer) {
+        return hashOf(buffer);
+    }
+
+    /**
+     * Answer the hash of the region of the file, hashing each mapped window in parallel where the algorithm supports
+     * it, as in {@link #parallelHashOf(ByteBuffer)}
+     */
+    public byte[] parallelHashOf(FileChannel channel, long offset, long length) {
+        return hashOf(channel, offset, length);
+    }
+
+    /**
+     * Answer the hash of the file, hashing each mapped window in parallel where the algorithm supports it, as in
+     * {@link #parallelHashOf(ByteBuffer)}
+     */
+    public byte[] parallelHashOf(Path path) {
+        return withChannel(path, channel -> parallelHashOf(channel, 0, channel.size()));
+    }
+
+    /**
+     * Answer n contiguous ranges covering the digest key space from the origin to the last digest, in ascending order
+     * and of equal size to within one
+     */
+    public DigestRange[] partition(int n) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("Partitions must be positive: " + n);
+        }
+        if (longLength() == 0) {
+            throw new IllegalArgumentException("Cannot partition the digests of: " + this);
+        }
+        var one = new long[longLength()];
+        one[one.length - 1] = 1;
+        var unit = new Digest(this, one);
+        var ranges = new DigestRange[n];
+        var start = getOrigin();
+        for (int i = 1; i < n; i++) {
+            var next = new Digest(this, boundary(i, n));
+            ranges[i - 1] = new DigestRange(start, next.subtract(unit));
+            start = next;
+        }
+        ranges[n - 1] = new DigestRange(start, getLast());
+        return ranges;
+    }
+
     public Digest random() {
         long[] hash = new long[longLength()];
         for (int i = 0; i < hash.length; i++) {
@@ -440,6 +782,47 @@ public enum DigestAlgorithm {
         return new Digest(digestCode(), hash);
     }
 
+    /**
+     * Answer a resumable Hasher continuing the computation whose intermediate state was exported by
+     * {@link Hasher#getState()}
+     *
+     * @see #newResumableHasher()
+     */
+    public Hasher resume(byte[] state) {
+        if (state == null || state.length == 0 || state[0] != digestCode()) {
+            throw new IllegalArgumentException("Not a state of: " + this);
+        }
+        var encoded = Arrays.copyOfRange(state, 1, state.length);
+        try {
+            return createResumable(encoded);
+        } catch (IndexOutOfBoundsException | BufferUnderflowException e) {
+            throw new IllegalArgumentException("Invalid state of: " + this, e);
+        }
+    }
+
+    /**
+     * Answer true if the MAC is the MAC of the remaining bytes of the buffers under the key, compared in constant
+     * time. Each buffer's position is advanced to its limit
+     */
+    public boolean verify(byte[] key, Digest mac, ByteBuffer... buffers) {
+        return mac.getAlgorithm() == this && MessageDigest.isEqual(mac.getBytes(), mac(key, buffers).getBytes());
+    }
+
+    /**
+     * Answer count independent digests of the remaining bytes of the buffers, derived in a single pass over the input.
+     * BLAKE3 uses its native extendable output, where the first digest is equal to the digest of the buffers; the
+     * other algorithms expand a single digest of the input in counter mode. Each buffer's position is advanced to its
+     * limit
+     */
+    public Digest[] xof(int count, ByteBuffer... buffers) {
+        var hasher = lookupHasher();
+        hasher.reset();
+        for (var buffer : buffers) {
+            hasher.update(buffer);
+        }
+        return hasher.finish(count);
+    }
+
     protected MessageDigest createJCA() {
         try {
             return MessageDigest.getInstance(algorithmName());
@@ -449,15 +832,163 @@ public enum DigestAlgorithm {
         }
     }
 
-    private MessageDigest lookupJCA() {
+    /**
+     * Answer a new Hasher on the underlying digest engine of the receiver
+     */
+    Hasher createHasher() {
+        return new Hasher.JcaHasher(this, createJCA());
+    }
+
+    /**
+     * Answer count independent digests of the bytes accumulated by the hasher, resetting the hasher. The default
+     * expands the digest of the accumulated bytes in counter mode, hashing the digest followed by the big endian
+     * counter
+     */
+    Digest[] expand(Hasher hasher, int count) {
+        var seed = hasher.doFinal();
+        var digests = new Digest[count];
+        for (int i = 0; i < count; i++) {
+            digests[i] = hasher.update(seed).update(i).finish();
+        }
+        return digests;
+    }
+
+    /**
+     * Answer a new keyed Hasher on the underlying digest engine of the receiver
+     */
+    Hasher createMac(byte[] key) {
+        throw new UnsupportedOperationException("MAC not supported by: " + this);
+    }
+
+    /**
+     * Answer a new resumable Hasher of the receiver, restored from the encoded state if not null
+     */
+    Hasher createResumable(byte[] state) {
+        throw new UnsupportedOperationException("Resumable hashing not supported by: " + this);
+    }
+
+    /**
+     * Answer the words of floor(i * 2^(digest bits) / n), by long division in 32 bit digits
+     */
+    private long[] boundary(int i, int n) {
+        var words = new long[longLength()];
+        long remainder = i;
+        for (int w = 0; w < words.length; w++) {
+            long word = 0;
+            for (int half = 0; half < 2; half++) {
+                var dividend = remainder << 32;
+                word = (word << 32) | (dividend / n);
+                remainder = dividend % n;
+            }
+            words[w] = word;
+        }
+        return words;
+    }
+
+    private <T> Digest[] digestAll(List<T> messages, int threshold, BiConsumer<Hasher, T> update) {
+        var digests = new Digest[messages.size()];
+        if (digests.length < Math.max(threshold, 2)) {
+            var hasher = lookupHasher();
+            hasher.reset();
+            for (int i = 0; i < digests.length; i++) {
+                update.accept(hasher, messages.get(i));
+                digests[i] = hasher.finish();
+            }
+            return digests;
+        }
+        var pool = ForkJoinPool.commonPool();
+        var batch = Math.max(MIN_BATCH, digests.length / (4 * pool.getParallelism()));
+        pool.invoke(new DigestAll<>(this, messages, digests, update, 0, digests.length, batch));
+        return digests;
+    }
+
+    /**
+     * Return the Hasher to the pool of the receiver
+     */
+    void release(Hasher hasher) {
+        assert hasher.getAlgorithm() == this;
+        if (hasher.isKeyed() || hasher.isResumable()) {
+            return;
+        }
+        hasher.engineReset();
+        if (pooled.incrementAndGet() > MAX_POOLED) {
+            pooled.decrementAndGet();
+            return;
+        }
+        pool.offer(hasher);
+    }
+
+    /**
+     * Answer the consecutive digest length runs of the bytes as digests
+     */
+    Digest[] split(byte[] bytes) {
+        var length = digestLength();
+        var digests = new Digest[bytes.length / length];
+        for (int i = 0; i < digests.length; i++) {
+            digests[i] = new Digest(this, Arrays.copyOfRange(bytes, i * length, (i + 1) * length));
+        }
+        return digests;
+    }
+
+    private byte[] withChannel(Path path, FileHash hash) {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return hash.hashOf(channel);
+        } catch (IOException e) {
+            throw new IllegalStateException("Error reading from file: " + path + ", cannot generate hash", e);
+        }
+    }
+
+    private Hasher lookupHasher() {
         return MESSAGE_DIGEST.get().lookup(this);
     }
 
+    @FunctionalInterface
+    private interface FileHash {
+        byte[] hashOf(FileChannel channel) throws IOException;
+    }
+
+    private static class DigestAll<T> extends RecursiveAction {
+        private final DigestAlgorithm       algorithm;
+        private final int                   batch;
+        private final Digest[]              digests;
+        private final int                   from;
+        private final List<T>               messages;
+        private final int                   to;
+        private final BiConsumer<Hasher, T> update;
+
+        private DigestAll(DigestAlgorithm algorithm, List<T> messages, Digest[] digests,
+                          BiConsumer<Hasher, T> update, int from, int to, int batch) {
+            this.algorithm = algorithm;
+            this.messages = messages;
+            this.digests = digests;
+            this.update = update;
+            this.from = from;
+            this.to = to;
+            this.batch = batch;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= batch) {
+                var hasher = algorithm.lookupHasher();
+                hasher.reset();
+                for (int i = from; i < to; i++) {
+                    update.accept(hasher, messages.get(i));
+                    digests[i] = hasher.finish();
+                }
+                return;
+            }
+            var mid = (from + to) >>> 1;
+            invokeAll(new DigestAll<>(algorithm, messages, digests, update, from, mid, batch),
+                      new DigestAll<>(algorithm, messages, digests, update, mid, to, batch));
+        }
+    }
+
     private static class DigestCache {
-        private final Map<DigestAlgorithm, MessageDigest> cache = new HashMap<>();
+        private final Map<DigestAlgorithm, Hasher> cache = new EnumMap<>(DigestAlgorithm.class);
 
-        public MessageDigest lookup(DigestAlgorithm da) {
-            return cache.computeIfAbsent(da, k -> k.createJCA());
+        public Hasher lookup(DigestAlgorithm da) {
+            return cache.computeIfAbsent(da, k -> k.createHasher());
         }
     }
 }
@@ -0,0 +1,499 @@
+/*
+ * Copyright (C) 2023 Hal Hildebrand. All rights reserved.
+ */
+package com.hellblazer.cryptography.hash;
+
+import com.hellblazer.cryptography.bloomFilters.Hash;
+
+import java.nio.LongBuffer;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * A growable array of digests of a single DigestAlgorithm, packed contiguously into one long[]. Each digest occupies
+ * {@link DigestAlgorithm#longLength()} longs, in the same big endian order as {@link Digest#getLongs()}, without the
+ * per digest object headers, algorithm reference and cached hash code of a Digest[].
+ * <p>
+ * Digests are only materialized on {@link #get(int)}; comparison, searching, sorting and reduction operate directly
+ * on the packed longs. Not thread safe.
+ *
+ * @author hal.hildebrand
+ */
+public class DigestArray {
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final int INSERTION_SORT   = 16;
+
+    private final DigestAlgorithm algorithm;
+    private final int             stride;
+    private       long[]          data;
+    private       int             size;
+
+    public DigestArray(DigestAlgorithm algorithm) {
+        this(algorithm, DEFAULT_CAPACITY);
+    }
+
+    public DigestArray(DigestAlgorithm algorithm, int capacity) {
+        if (algorithm.longLength() == 0) {
+            throw new IllegalArgumentException("Cannot pack digests of: " + algorithm);
+        }
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Negative capacity: " + capacity);
+        }
+        this.algorithm = algorithm;
+        this.stride = algorithm.longLength();
+        try {
+            this.data = new long[Math.multiplyExact(Math.max(capacity, 1), stride)];
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Capacity: " + capacity + " too large for: " + algorithm, e);
+        }
+    }
+
+    /**
+     * Answer a DigestArray of the supplied packed longs, which are copied
+     */
+    public static DigestArray from(DigestAlgorithm algorithm, long[] packed) {
+        var array = new DigestArray(algorithm, packed.length / Math.max(1, algorithm.longLength()));
+        array.addAll(packed);
+        return array;
+    }
+
+    public static DigestArray of(DigestAlgorithm algorithm, Collection<Digest> digests) {
+        var array = new DigestArray(algorithm, digests.size());
+        for (var d : digests) {
+            array.add(d);
+        }
+        return array;
+    }
+
+    public static DigestArray of(DigestAlgorithm algorithm, Digest... digests) {
+        var array = new DigestArray(algorithm, digests.length);
+        array.addAll(digests);
+        return array;
+    }
+
+    private static int compare(long[] a, int aOffset, long[] b, int bOffset, int length) {
+        int i = Arrays.mismatch(a, aOffset, aOffset + length, b, bOffset, bOffset + length);
+        return i < 0 ? 0 : Long.compareUnsigned(a[aOffset + i], b[bOffset + i]);
+    }
+
+    /**
+     * Append the digest
+     *
+     * @return the index of the appended digest
+     */
+    public int add(Digest digest) {
+        return add(check(digest).getLongs(), 0);
+    }
+
+    /**
+     * Append the digest stored as longLength longs at the offset of the hash
+     *
+     * @return the index of the appended digest
+     */
+    public int add(long[] hash, int offset) {
+        ensureCapacity(size + 1);
+        System.arraycopy(hash, offset, data, size * stride, stride);
+        return size++;
+    }
+
+    public void addAll(Digest[] digests) {
+        ensureCapacity(size + digests.length);
+        for (var d : digests) {
+            System.arraycopy(check(d).getLongs(), 0, data, size++ * stride, stride);
+        }
+    }
+
+    /**
+     * Append the digests packed as consecutive runs of longLength longs
+     */
+    public void addAll(long[] packed) {
+        if (packed.length % stride != 0) {
+            throw new IllegalArgumentException(
+            "Packed length: " + packed.length + " is not a multiple of digest length: " + stride);
+        }
+        var count = packed.length / stride;
+        ensureCapacity(size + count);
+        System.arraycopy(packed, 0, data, size * stride, packed.length);
+        size += count;
+    }
+
+    /**
+     * Answer the index of the digest in the receiver, which must be sorted, or (-(insertion point) - 1) if absent
+     */
+    public int binarySearch(Digest digest) {
+        return binarySearch(check(digest).getLongs(), 0);
+    }
+
+    /**
+     * Answer the index of the digest stored at the offset of the hash in the receiver, which must be sorted, or
+     * (-(insertion point) - 1) if absent
+     */
+    public int binarySearch(long[] hash, int offset) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int compare = compare(data, mid * stride, hash, offset, stride);
+            if (compare < 0) {
+                low = mid + 1;
+            } else if (compare > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Answer the unsigned comparison of the indexed digests
+     */
+    public int compare(int i, int j) {
+        return compare(data, offset(i), data, offset(j), stride);
+    }
+
+    /**
+     * Answer the unsigned comparison of the indexed digest with the supplied digest
+     */
+    public int compare(int index, Digest digest) {
+        return compare(data, offset(index), check(digest).getLongs(), 0, stride);
+    }
+
+    /**
+     * Copy the longs of the indexed digest into the destination at the offset
+     */
+    public void copyTo(int index, long[] dest, int offset) {
+        System.arraycopy(data, offset(index), dest, offset, stride);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof DigestArray other)) {
+            return false;
+        }
+        return algorithm == other.algorithm && Arrays.equals(data, 0, size * stride, other.data, 0,
+                                                             other.size * stride);
+    }
+
+    /**
+     * Answer true if the indexed digest is equal to the supplied digest
+     */
+    public boolean equals(int index, Digest digest) {
+        var offset = offset(index);
+        return digest.getAlgorithm() == algorithm && Arrays.equals(data, offset, offset + stride, digest.getLongs(), 0,
+                                                                   stride);
+    }
+
+    /**
+     * Answer the {@link Digest#fold()} of the indexed digest
+     */
+    public long fold(int index) {
+        var offset = offset(index);
+        long folded = 0;
+        for (int i = offset; i < offset + stride; i++) {
+            folded ^= BUZ.buzhash(data[i]) % Hash.MERSENNE_31;
+        }
+        return folded;
+    }
+
+    /**
+     * Answer the indexed digest
+     */
+    public Digest get(int index) {
+        var offset = offset(index);
+        return new Digest(algorithm, Arrays.copyOfRange(data, offset, offset + stride));
+    }
+
+    public DigestAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * Answer the indexed long of the indexed digest
+     */
+    public long getLong(int index, int word) {
+        if (word < 0 || word >= stride) {
+            throw new IndexOutOfBoundsException(word);
+        }
+        return data[offset(index) + word];
+    }
+
+    @Override
+    public int hashCode() {
+        int result = algorithm.digestCode();
+        for (int i = 0; i < size * stride; i++) {
+            result = 31 * result + Long.hashCode(data[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Insert the digest at the index, shifting the digests at and after the index up by one
+     */
+    public void insert(int index, Digest digest) {
+        insert(index, check(digest).getLongs(), 0);
+    }
+
+    /**
+     * Insert the digest stored as longLength longs at the offset of the hash at the index, shifting the digests at and
+     * after the index up by one
+     */
+    public void insert(int index, long[] hash, int offset) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        ensureCapacity(size + 1);
+        System.arraycopy(data, index * stride, data, (index + 1) * stride, (size - index) * stride);
+        System.arraycopy(hash, offset, data, index * stride, stride);
+        size++;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Answer the index of the digest with the least xor distance to the target, or -1 if the receiver is empty. Ties
+     * are resolved to the lowest index
+     */
+    public int nearest(Digest target) {
+        var t = check(target).getLongs();
+        int nearest = -1;
+        for (int i = 0, offset = 0; i < size; i++, offset += stride) {
+            if (nearest < 0 || closer(offset, nearest * stride, t)) {
+                nearest = i;
+            }
+        }
+        return nearest;
+    }
+
+    /**
+     * Sort the receiver in ascending unsigned order, in place, with a radix sort across the common fork join pool
+     */
+    public void parallelSort() {
+        DigestSort.sort(data, stride, size);
+    }
+
+    /**
+     * Remove the indexed digest, shifting the digests after the index down by one
+     */
+    public void remove(int index) {
+        var offset = offset(index);
+        System.arraycopy(data, offset + stride, data, offset, (size - index - 1) * stride);
+        size--;
+    }
+
+    /**
+     * Replace the indexed digest
+     */
+    public void set(int index, Digest digest) {
+        System.arraycopy(check(digest).getLongs(), 0, data, offset(index), stride);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Sort the receiver in ascending unsigned order, in place
+     */
+    public void sort() {
+        if (size > 1) {
+            sort(0, size - 1, new long[stride * 2]);
+        }
+    }
+
+    /**
+     * Answer the digests of the receiver
+     */
+    public Digest[] toArray() {
+        var digests = new Digest[size];
+        for (int i = 0; i < size; i++) {
+            digests[i] = get(i);
+        }
+        return digests;
+    }
+
+    /**
+     * Answer a copy of the packed longs of the receiver
+     */
+    public long[] toLongs() {
+        return Arrays.copyOf(data, size * stride);
+    }
+
+    @Override
+    public String toString() {
+        return "DigestArray[" + algorithm + ":" + size + "]";
+    }
+
+    /**
+     * Release any unused capacity
+     */
+    public void trimToSize() {
+        if (data.length > Math.max(size, 1) * stride) {
+            data = Arrays.copyOf(data, Math.max(size, 1) * stride);
+        }
+    }
+
+    /**
+     * Answer a read only view of the longs of the indexed digest, sharing the receiver's storage
+     */
+    public LongBuffer view(int index) {
+        return LongBuffer.wrap(data, offset(index), stride).slice().asReadOnlyBuffer();
+    }
+
+    /**
+     * Replace each digest of the receiver with its xor with the supplied digest
+     */
+    public void xor(Digest digest) {
+        var d = check(digest).getLongs();
+        for (int i = 0; i < size * stride; i += stride) {
+            for (int j = 0; j < stride; j++) {
+                data[i + j] ^= d[j];
+            }
+        }
+    }
+
+    /**
+     * Replace each digest of the receiver with its xor with the digest of the same index in the other array
+     */
+    public void xor(DigestArray other) {
+        if (other.algorithm != algorithm || other.size != size) {
+            throw new IllegalArgumentException("Cannot xor " + other + " with " + this);
+        }
+        var o = other.data;
+        for (int i = 0; i < size * stride; i++) {
+            data[i] ^= o[i];
+        }
+    }
+
+    /**
+     * Answer the xor of all the digests of the receiver
+     */
+    public Digest xorReduce() {
+        var reduced = new long[stride];
+        var length = size * stride;
+        if (stride == 4) {
+            long a = 0, b = 0, c = 0, d = 0;
+            for (int i = 0; i < length; i += 4) {
+                a ^= data[i];
+                b ^= data[i + 1];
+                c ^= data[i + 2];
+                d ^= data[i + 3];
+            }
+            reduced[0] = a;
+            reduced[1] = b;
+            reduced[2] = c;
+            reduced[3] = d;
+        } else {
+            for (int i = 0; i < length; i += stride) {
+                for (int j = 0; j < stride; j++) {
+                    reduced[j] ^= data[i + j];
+                }
+            }
+        }
+        return new Digest(algorithm, reduced);
+    }
+
+    private Digest check(Digest digest) {
+        if (digest.getAlgorithm() != algorithm) {
+            throw new IllegalArgumentException(
+            "Digest algorithm: " + digest.getAlgorithm() + " does not match: " + algorithm);
+        }
+        return digest;
+    }
+
+    /**
+     * Answer true if the digest at the offset is strictly closer to the target, by xor distance, than the digest at
+     * the other offset
+     */
+    private boolean closer(int offset, int other, long[] target) {
+        for (int j = 0; j < stride; j++) {
+            long a = data[offset + j] ^ target[j];
+            long b = data[other + j] ^ target[j];
+            if (a != b) {
+                return Long.compareUnsigned(a, b) < 0;
+            }
+        }
+        return false;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity * (long) stride > data.length) {
+            var grown = Math.max(capacity, Math.min(Integer.MAX_VALUE / stride, 2L * data.length / stride));
+            data = Arrays.copyOf(data, Math.toIntExact(grown * stride));
+        }
+    }
+
+    private int offset(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return index * stride;
+    }
+
+    /**
+     * Quicksort of the inclusive range, with median of three pivots and insertion sort of small ranges. The pivot is
+     * held in the first stride of the scratch array, and the second is used for swapping
+     */
+    private void sort(int low, int high, long[] scratch) {
+        while (high - low >= INSERTION_SORT) {
+            int mid = (low + high) >>> 1;
+            if (compare(data, mid * stride, data, low * stride, stride) < 0) {
+                swap(mid, low, scratch);
+            }
+            if (compare(data, high * stride, data, low * stride, stride) < 0) {
+                swap(high, low, scratch);
+            }
+            if (compare(data, high * stride, data, mid * stride, stride) < 0) {
+                swap(high, mid, scratch);
+            }
+            System.arraycopy(data, mid * stride, scratch, 0, stride);
+            int i = low;
+            int j = high;
+            while (i <= j) {
+                while (compare(data, i * stride, scratch, 0, stride) < 0) {
+                    i++;
+                }
+                while (compare(data, j * stride, scratch, 0, stride) > 0) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(i++, j--, scratch);
+                }
+            }
+            if (j - low < high - i) {
+                sort(low, j, scratch);
+                low = i;
+            } else {
+                sort(i, high, scratch);
+                high = j;
+            }
+        }
+        for (int i = low + 1; i <= high; i++) {
+            System.arraycopy(data, i * stride, scratch, stride, stride);
+            int j = i - 1;
+            while (j >= low && compare(data, j * stride, scratch, stride, stride) > 0) {
+                System.arraycopy(data, j * stride, data, (j + 1) * stride, stride);
+                j--;
+            }
+            System.arraycopy(scratch, stride, data, (j + 1) * stride, stride);
+        }
+    }
+
+    private void swap(int i, int j, long[] scratch) {
+        if (i == j) {
+            return;
+        }
+        System.arraycopy(data, i * stride, scratch, stride, stride);
+        System.arraycopy(data, j * stride, data, i * stride, stride);
+        System.arraycopy(scratch, stride, data, j * stride, stride);
+    }
+}
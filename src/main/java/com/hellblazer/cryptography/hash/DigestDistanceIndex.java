@@ -0,0 +1,293 @@
+/*
+ * Copyright (C) 2023 Hal Hildebrand. All rights reserved.
+ */
+package com.hellblazer.cryptography.hash;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * An index of digests of a single DigestAlgorithm ordered by XOR distance, for Kademlia style routing. The digests are
+ * held in a crit bit trie: each branch records the first bit at which the digests beneath it differ. Beneath a
+ * branch, every digest in the child that agrees with a key at the branch's bit is closer to the key by XOR distance
+ * than every digest in the other child, so visiting the agreeing child first enumerates digests in order of
+ * increasing distance. The k nearest digests are thus found in O(log n + k) for uniformly distributed digests.
+ * <p>
+ * The trie is persistent; updates copy the path from the root to the change and are published by compare and set of
+ * the root, so adds and removes are lock free and may be made concurrently, and readers always observe a consistent
+ * trie. Iteration and {@link #snapshot()} capture the trie at a point in time and are unaffected by later updates.
+ *
+ * @author hal.hildebrand
+ */
+public class DigestDistanceIndex implements Iterable<Digest> {
+    private final DigestAlgorithm       algorithm;
+    private final boolean               frozen;
+    private final AtomicReference<Node> root;
+
+    public DigestDistanceIndex(DigestAlgorithm algorithm) {
+        this(algorithm, null, false);
+        if (algorithm.longLength() == 0) {
+            throw new IllegalArgumentException("Cannot index digests of: " + algorithm);
+        }
+    }
+
+    private DigestDistanceIndex(DigestAlgorithm algorithm, Node root, boolean frozen) {
+        this.algorithm = algorithm;
+        this.root = new AtomicReference<>(root);
+        this.frozen = frozen;
+    }
+
+    private static int bit(long[] hash, int bit) {
+        return (int) (hash[bit >>> 6] >>> (63 - (bit & 63))) & 1;
+    }
+
+    /**
+     * Answer the index of the first bit at which the hashes differ, or -1 if equal
+     */
+    private static int critical(long[] a, long[] b) {
+        var i = Arrays.mismatch(a, b);
+        return i < 0 ? -1 : (i << 6) + Long.numberOfLeadingZeros(a[i] ^ b[i]);
+    }
+
+    private static Node insert(Node node, Leaf leaf, int critical) {
+        if (node instanceof Branch branch && branch.bit < critical) {
+            return bit(leaf.hash(), branch.bit) == 0 ? new Branch(branch.bit, insert(branch.left, leaf, critical),
+                                                                  branch.right)
+                                                     : new Branch(branch.bit, branch.left,
+                                                                  insert(branch.right, leaf, critical));
+        }
+        return bit(leaf.hash(), critical) == 0 ? new Branch(critical, leaf, node) : new Branch(critical, node, leaf);
+    }
+
+    private static Leaf leaf(Node node, long[] hash) {
+        while (node instanceof Branch branch) {
+            node = bit(hash, branch.bit) == 0 ? branch.left : branch.right;
+        }
+        return (Leaf) node;
+    }
+
+    private static void nearest(Node node, long[] hash, int k, List<Digest> nearest) {
+        if (node instanceof Branch branch) {
+            var agrees = bit(hash, branch.bit) == 0;
+            nearest(agrees ? branch.left : branch.right, hash, k, nearest);
+            if (nearest.size() < k) {
+                nearest(agrees ? branch.right : branch.left, hash, k, nearest);
+            }
+        } else {
+            nearest.add(((Leaf) node).digest);
+        }
+    }
+
+    /**
+     * Answer the node with the hash removed, or the node itself if the hash is absent
+     */
+    private static Node remove(Node node, long[] hash) {
+        if (node instanceof Branch branch) {
+            if (bit(hash, branch.bit) == 0) {
+                var left = remove(branch.left, hash);
+                return left == branch.left ? branch : left == null ? branch.right : new Branch(branch.bit, left,
+                                                                                                 branch.right);
+            }
+            var right = remove(branch.right, hash);
+            return right == branch.right ? branch : right == null ? branch.left : new Branch(branch.bit, branch.left,
+                                                                                               right);
+        }
+        return node == null || !Arrays.equals(((Leaf) node).hash(), hash) ? node : null;
+    }
+
+    /**
+     * Add the digest
+     *
+     * @return true if the digest was not already present
+     */
+    public boolean add(Digest digest) {
+        check(digest);
+        mutate();
+        var leaf = new Leaf(digest);
+        while (true) {
+            var current = root.get();
+            Node updated;
+            if (current == null) {
+                updated = leaf;
+            } else {
+                var critical = critical(leaf.hash(), leaf(current, leaf.hash()).hash());
+                if (critical < 0) {
+                    return false;
+                }
+                updated = insert(current, leaf, critical);
+            }
+            if (root.compareAndSet(current, updated)) {
+                return true;
+            }
+        }
+    }
+
+    public void clear() {
+        mutate();
+        root.set(null);
+    }
+
+    public boolean contains(Digest digest) {
+        var current = root.get();
+        return current != null && leaf(current, check(digest).getLongs()).digest.equals(digest);
+    }
+
+    public DigestAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    public boolean isEmpty() {
+        return root.get() == null;
+    }
+
+    /**
+     * Answer an iterator over the digests in ascending order, of the index as of this call
+     */
+    @Override
+    public Iterator<Digest> iterator() {
+        var current = root.get();
+        var stack = new ArrayDeque<Node>();
+        if (current != null) {
+            stack.push(current);
+        }
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return !stack.isEmpty();
+            }
+
+            @Override
+            public Digest next() {
+                if (stack.isEmpty()) {
+                    throw new NoSuchElementException();
+                }
+                var node = stack.pop();
+                while (node instanceof Branch branch) {
+                    stack.push(branch.right);
+                    node = branch.left;
+                }
+                return ((Leaf) node).digest;
+            }
+        };
+    }
+
+    /**
+     * Answer the digest nearest the key by XOR distance, or null if empty. Does not allocate
+     */
+    public Digest nearest(Digest key) {
+        var current = root.get();
+        return current == null ? null : leaf(current, check(key).getLongs()).digest;
+    }
+
+    /**
+     * Answer the k digests nearest the key by XOR distance, in order of increasing distance
+     */
+    public List<Digest> nearest(Digest key, int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k must be non negative: " + k);
+        }
+        var current = root.get();
+        var nearest = new ArrayList<Digest>(Math.min(k, current == null ? 0 : current.size()));
+        if (current != null && k > 0) {
+            nearest(current, check(key).getLongs(), k, nearest);
+        }
+        return nearest;
+    }
+
+    /**
+     * Remove the digest
+     *
+     * @return true if the digest was present
+     */
+    public boolean remove(Digest digest) {
+        check(digest);
+        mutate();
+        var hash = digest.getLongs();
+        while (true) {
+            var current = root.get();
+            var updated = remove(current, hash);
+            if (updated == current) {
+                return false;
+            }
+            if (root.compareAndSet(current, updated)) {
+                return true;
+            }
+        }
+    }
+
+    public int size() {
+        var current = root.get();
+        return current == null ? 0 : current.size();
+    }
+
+    /**
+     * Answer an immutable copy of the receiver. Constant time, as the trie is shared
+     */
+    public DigestDistanceIndex snapshot() {
+        return new DigestDistanceIndex(algorithm, root.get(), true);
+    }
+
+    @Override
+    public String toString() {
+        return "DigestDistanceIndex[" + algorithm + ":" + size() + "]";
+    }
+
+    private Digest check(Digest digest) {
+        if (digest.getAlgorithm() != algorithm) {
+            throw new IllegalArgumentException(
+            "Digest algorithm: " + digest.getAlgorithm() + " does not match: " + algorithm);
+        }
+        return digest;
+    }
+
+    private void mutate() {
+        if (frozen) {
+            throw new UnsupportedOperationException("Snapshots are immutable");
+        }
+    }
+
+    private static abstract class Node {
+        abstract int size();
+    }
+
+    private static class Branch extends Node {
+        private final int  bit;
+        private final Node left;
+        private final Node right;
+        private final int  size;
+
+        private Branch(int bit, Node left, Node right) {
+            this.bit = bit;
+            this.left = left;
+            this.right = right;
+            this.size = left.size() + right.size();
+        }
+
+        @Override
+        int size() {
+            return size;
+        }
+    }
+
+    private static class Leaf extends Node {
+        private final Digest digest;
+
+        private Leaf(Digest digest) {
+            this.digest = digest;
+        }
+
+        @Override
+        int size() {
+            return 1;
+        }
+
+        private long[] hash() {
+            return digest.getLongs();
+        }
+    }
+}
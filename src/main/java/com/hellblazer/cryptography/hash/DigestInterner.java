@@ -0,0 +1,243 @@
+/*
+ * Copyright (C) 2023 Hal Hildebrand. All rights reserved.
+ */
+package com.hellblazer.cryptography.hash;
+
+import com.hellblazer.cryptography.proto.Digest_;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A concurrent interning cache of canonical Digest instances. Digests are keyed by their algorithm and raw longs, with
+ * the key sharing the long[] of the canonical digest, and the canonical digests are held weakly, so the cache never
+ * retains a digest that is otherwise unreachable. Entries of collected digests are expunged as the cache is used.
+ * <p>
+ * Interning a Digest_ looks up its longs in place and only constructs a Digest on a miss. Hits and misses are counted
+ * for monitoring the effectiveness of the cache. Thread safe.
+ *
+ * @author hal.hildebrand
+ */
+public class DigestInterner {
+    private final ConcurrentHashMap<Key, Canonical> canonical = new ConcurrentHashMap<>();
+    private final LongAdder                         hits      = new LongAdder();
+    private final LongAdder                         misses    = new LongAdder();
+    private final ReferenceQueue<Digest>            queue     = new ReferenceQueue<>();
+
+    /**
+     * Remove all entries and reset the metrics
+     */
+    public void clear() {
+        expunge();
+        canonical.clear();
+        hits.reset();
+        misses.reset();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Answer the fraction of interning requests satisfied by an existing canonical digest, or 0 if none have been made
+     */
+    public double hitRate() {
+        var h = hits.sum();
+        var total = h + misses.sum();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    /**
+     * Answer the canonical instance of the digest, which becomes canonical if none is present
+     */
+    public Digest intern(Digest digest) {
+        if (digest.getAlgorithm() == DigestAlgorithm.NONE) {
+            return Digest.NONE;
+        }
+        expunge();
+        return intern(digest, new LongsKey(digest.getAlgorithm(), digest.getLongs()));
+    }
+
+    /**
+     * Answer the canonical instance of the serialized digest, constructing a Digest only if none is present
+     */
+    public Digest intern(Digest_ digest) {
+        var algorithm = DigestAlgorithm.fromDigestCode(digest.getType());
+        if (algorithm == DigestAlgorithm.NONE) {
+            return Digest.NONE;
+        }
+        expunge();
+        var found = lookup(new ProtoKey(algorithm, digest));
+        if (found != null) {
+            return found;
+        }
+        var d = new Digest(digest);
+        return intern(d, new LongsKey(algorithm, d.getLongs()));
+    }
+
+    /**
+     * Answer the number of entries, including any whose digests have been collected but not yet expunged
+     */
+    public int size() {
+        expunge();
+        return canonical.size();
+    }
+
+    @Override
+    public String toString() {
+        return "DigestInterner[size: " + canonical.size() + " hits: " + hits.sum() + " misses: " + misses.sum() + "]";
+    }
+
+    private void expunge() {
+        for (var ref = queue.poll(); ref != null; ref = queue.poll()) {
+            var c = (Canonical) ref;
+            canonical.remove(c.key, c);
+        }
+    }
+
+    private Digest intern(Digest digest, LongsKey key) {
+        while (true) {
+            var found = lookup(key);
+            if (found != null) {
+                return found;
+            }
+            if (canonical.putIfAbsent(key, new Canonical(digest, key, queue)) == null) {
+                misses.increment();
+                return digest;
+            }
+        }
+    }
+
+    /**
+     * Answer the live canonical digest of the key, counting the hit, or null if absent
+     */
+    private Digest lookup(Key key) {
+        var ref = canonical.get(key);
+        if (ref == null) {
+            return null;
+        }
+        var digest = ref.get();
+        if (digest == null) {
+            canonical.remove(ref.key, ref);
+            return null;
+        }
+        hits.increment();
+        return digest;
+    }
+
+    private static class Canonical extends WeakReference<Digest> {
+        private final Key key;
+
+        private Canonical(Digest digest, Key key, ReferenceQueue<Digest> queue) {
+            super(digest, queue);
+            this.key = key;
+        }
+    }
+
+    /**
+     * The algorithm and longs of a digest. Keys of different representations are equal if their algorithms and longs
+     * are
+     */
+    private static abstract class Key {
+        final DigestAlgorithm algorithm;
+
+        Key(DigestAlgorithm algorithm) {
+            this.algorithm = algorithm;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key other) || algorithm != other.algorithm || length() != other.length()) {
+                return false;
+            }
+            for (int i = 0; i < length(); i++) {
+                if (word(i) != other.word(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            int h = algorithm.ordinal();
+            for (int i = 0; i < length(); i++) {
+                h = 31 * h + Long.hashCode(word(i));
+            }
+            return h;
+        }
+
+        abstract int length();
+
+        abstract long word(int index);
+    }
+
+    private static class LongsKey extends Key {
+        private final int    hashCode;
+        private final long[] longs;
+
+        private LongsKey(DigestAlgorithm algorithm, long[] longs) {
+            super(algorithm);
+            this.longs = longs;
+            this.hashCode = super.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj instanceof LongsKey other) {
+                return algorithm == other.algorithm && Arrays.equals(longs, other.longs);
+            }
+            return super.equals(obj);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        int length() {
+            return longs.length;
+        }
+
+        @Override
+        long word(int index) {
+            return longs[index];
+        }
+    }
+
+    /**
+     * A probe reading the longs of the compact or legacy form of a serialized digest in place
+     */
+    private static class ProtoKey extends Key {
+        private final ByteBuffer bytes;
+        private final Digest_    digest;
+
+        private ProtoKey(DigestAlgorithm algorithm, Digest_ digest) {
+            super(algorithm);
+            this.digest = digest;
+            this.bytes = digest.getBytes().isEmpty() ? null : digest.getBytes().asReadOnlyByteBuffer();
+        }
+
+        @Override
+        int length() {
+            return bytes == null ? digest.getHashCount() : bytes.remaining() % 8 == 0 ? bytes.remaining() / 8 : -1;
+        }
+
+        @Override
+        long word(int index) {
+            return bytes == null ? digest.getHash(index) : bytes.getLong(bytes.position() + index * 8);
+        }
+    }
+}
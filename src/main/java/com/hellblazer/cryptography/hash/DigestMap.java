@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2023 Hal Hildebrand. All rights reserved.
+ */
+package com.hellblazer.cryptography.hash;
+
+import java.nio.ByteBuffer;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * A map keyed by digests of a single DigestAlgorithm, with the keys stored as raw longs in an open addressed table.
+ * Values may be looked up directly from longs or bytes, without materializing a Digest. Null values are not
+ * permitted. Not thread safe, although {@link #snapshot()} provides immutable copies that may be shared between
+ * readers.
+ *
+ * @author hal.hildebrand
+ */
+public class DigestMap<V> extends DigestTable {
+
+    public DigestMap(DigestAlgorithm algorithm) {
+        this(algorithm, 0);
+    }
+
+    public DigestMap(DigestAlgorithm algorithm, int expected) {
+        super(algorithm, expected, true);
+    }
+
+    private DigestMap(DigestMap<V> map) {
+        super(map);
+    }
+
+    public void clear() {
+        clearTable();
+    }
+
+    /**
+     * Answer the value of the key, computing and storing it if absent
+     */
+    public V computeIfAbsent(Digest key, Function<Digest, ? extends V> mappingFunction) {
+        var value = get(key);
+        if (value == null) {
+            value = mappingFunction.apply(key);
+            if (value != null) {
+                put(key, value);
+            }
+        }
+        return value;
+    }
+
+    public boolean containsKey(ByteBuffer buffer) {
+        return find(buffer) >= 0;
+    }
+
+    public boolean containsKey(Digest key) {
+        return find(check(key).getLongs(), 0) >= 0;
+    }
+
+    public boolean containsKey(long[] hash, int offset) {
+        return find(hash, offset) >= 0;
+    }
+
+    public void forEach(BiConsumer<Digest, ? super V> action) {
+        for (int slot = nextSlot(0); slot >= 0; slot = nextSlot(slot + 1)) {
+            action.accept(keyAt(slot), value(slot));
+        }
+    }
+
+    /**
+     * Answer the value of the key stored as big endian bytes at the buffer's position, or null if absent. The
+     * buffer's position is not changed
+     */
+    public V get(ByteBuffer buffer) {
+        return value(find(buffer));
+    }
+
+    public V get(Digest key) {
+        return value(find(check(key).getLongs(), 0));
+    }
+
+    /**
+     * Answer the value of the key stored as longLength longs at the offset of the hash, or null if absent
+     */
+    public V get(long[] hash, int offset) {
+        return value(find(hash, offset));
+    }
+
+    public V getOrDefault(Digest key, V defaultValue) {
+        var value = get(key);
+        return value == null ? defaultValue : value;
+    }
+
+    /**
+     * Associate the value with the key
+     *
+     * @return the previous value of the key, or null if absent
+     */
+    public V put(Digest key, V value) {
+        return put(check(key).getLongs(), 0, value);
+    }
+
+    /**
+     * Associate the value with the key stored as longLength longs at the offset of the hash
+     *
+     * @return the previous value of the key, or null if absent
+     */
+    public V put(long[] hash, int offset, V value) {
+        if (value == null) {
+            throw new NullPointerException("Null values are not permitted");
+        }
+        int slot = insert(hash, offset);
+        V previous = slot < 0 ? null : value(slot);
+        valueAt(slot < 0 ? -(slot + 1) : slot, value);
+        return previous;
+    }
+
+    public V remove(Digest key) {
+        return remove(check(key).getLongs(), 0);
+    }
+
+    /**
+     * Remove the key stored as longLength longs at the offset of the hash
+     *
+     * @return the value of the key, or null if absent
+     */
+    public V remove(long[] hash, int offset) {
+        int slot = find(hash, offset);
+        if (slot < 0) {
+            return null;
+        }
+        var value = value(slot);
+        removeSlot(slot);
+        return value;
+    }
+
+    /**
+     * Answer an immutable snapshot of the receiver, which may be read concurrently by any number of threads once
+     * safely published. The snapshot shares the receiver's tables until the receiver is next modified
+     */
+    public DigestMap<V> snapshot() {
+        return new DigestMap<>(this);
+    }
+
+    @SuppressWarnings("unchecked")
+    private V value(int slot) {
+        return slot < 0 ? null : (V) valueAt(slot);
+    }
+}
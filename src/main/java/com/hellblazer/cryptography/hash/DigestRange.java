@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2023 Hal Hildebrand. All rights reserved.
+ */
+package com.hellblazer.cryptography.hash;
+
+import java.util.Arrays;
+
+/**
+ * An inclusive range of the digest key space of a DigestAlgorithm, with digests ordered as unsigned integers. Range
+ * membership compares the longs of a digest in place, without allocation.
+ *
+ * @author hal.hildebrand
+ * @see DigestAlgorithm#partition(int)
+ */
+public class DigestRange {
+    private final Digest end;
+    private final Digest start;
+
+    /**
+     * @param start - the first digest of the range
+     * @param end   - the last digest of the range, not less than the start
+     */
+    public DigestRange(Digest start, Digest end) {
+        if (start.getAlgorithm() != end.getAlgorithm()) {
+            throw new IllegalArgumentException("Cannot range over digests of different algorithms");
+        }
+        if (start.compareTo(end) > 0) {
+            throw new IllegalArgumentException("Range start: " + start + " is after end: " + end);
+        }
+        this.start = start;
+        this.end = end;
+    }
+
+    private static int compare(long[] a, long[] b, int offset) {
+        var i = Arrays.mismatch(a, 0, a.length, b, offset, offset + a.length);
+        return i < 0 ? 0 : Long.compareUnsigned(a[i], b[offset + i]);
+    }
+
+    public boolean contains(Digest digest) {
+        return start.compareTo(digest) <= 0 && end.compareTo(digest) >= 0;
+    }
+
+    /**
+     * Answer true if the digest stored as longLength longs at the offset of the hash is within the range
+     */
+    public boolean contains(long[] hash, int offset) {
+        return compare(start.getLongs(), hash, offset) <= 0 && compare(end.getLongs(), hash, offset) >= 0;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof DigestRange other)) {
+            return false;
+        }
+        return start.equals(other.start) && end.equals(other.end);
+    }
+
+    public DigestAlgorithm getAlgorithm() {
+        return start.getAlgorithm();
+    }
+
+    public Digest getEnd() {
+        return end;
+    }
+
+    public Digest getStart() {
+        return start;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * start.hashCode() + end.hashCode();
+    }
+
+    /**
+     * Answer the midpoint of the range, rounded down
+     */
+    public Digest midpoint() {
+        return start.midpoint(end);
+    }
+
+    @Override
+    public String toString() {
+        return "DigestRange[" + start + ", " + end + "]";
+    }
+}
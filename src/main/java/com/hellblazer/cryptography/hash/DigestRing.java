@@ -0,0 +1,249 @@
+/*
+ * Copyright (C) 2023 Hal Hildebrand. All rights reserved.
+ */
+package com.hellblazer.cryptography.hash;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+/**
+ * Consistent hash rings of member digests. The position of a member on ring r is
+ * <code>member.prefix(context, r)</code>, and each ring holds the positions of all members sorted in a packed
+ * {@link DigestArray}, alongside the members in the same order. Positions are computed once, when a member is added,
+ * so successor, predecessor and range queries are binary searches of the packed positions that neither hash nor
+ * allocate.
+ * <p>
+ * Adding or removing a member hashes only that member's positions and shifts each ring's arrays, without rebuilding
+ * the rings. {@link #build(DigestAlgorithm, Digest, int, Collection)} computes and sorts the positions of many members
+ * across the common fork join pool. Not thread safe.
+ *
+ * @author hal.hildebrand
+ */
+public class DigestRing {
+    private final DigestAlgorithm algorithm;
+    private final Digest          context;
+    private final DigestSet       members;
+    private final Ring[]          rings;
+
+    public DigestRing(DigestAlgorithm algorithm, Digest context, int rings) {
+        if (rings <= 0) {
+            throw new IllegalArgumentException("Rings must be positive: " + rings);
+        }
+        this.algorithm = algorithm;
+        this.context = context;
+        this.members = new DigestSet(algorithm);
+        this.rings = new Ring[rings];
+        for (int r = 0; r < rings; r++) {
+            this.rings[r] = new Ring(new DigestArray(algorithm), new ArrayList<>());
+        }
+    }
+
+    /**
+     * Build the rings of the members, computing positions and sorting the rings across the common fork join pool when
+     * large enough
+     */
+    public static DigestRing build(DigestAlgorithm algorithm, Digest context, int rings,
+                                   Collection<Digest> members) {
+        var ring = new DigestRing(algorithm, context, rings);
+        var unique = new ArrayList<Digest>(members.size());
+        for (var m : members) {
+            if (ring.members.add(ring.check(m))) {
+                unique.add(m);
+            }
+        }
+        // Each ring's positions are packed with the index of their member appended, which the sort carries along
+        var length = algorithm.longLength();
+        var stride = length + 1;
+        var size = unique.size();
+        var packed = new long[rings][size * stride];
+        range(size, size).forEach(i -> {
+            var member = unique.get(i);
+            for (int r = 0; r < rings; r++) {
+                System.arraycopy(ring.position(member, r).getLongs(), 0, packed[r], i * stride, length);
+                packed[r][i * stride + length] = i;
+            }
+        });
+        range(rings, size).forEach(r -> {
+            var sorted = packed[r];
+            DigestSort.sort(sorted, stride, size);
+            var target = ring.rings[r];
+            for (int offset = 0; offset < sorted.length; offset += stride) {
+                target.positions.add(sorted, offset);
+                target.members.add(unique.get((int) sorted[offset + length]));
+            }
+        });
+        return ring;
+    }
+
+    private static IntStream range(int n, int work) {
+        var range = IntStream.range(0, n);
+        return work >= DigestAlgorithm.PARALLEL_THRESHOLD ? range.parallel() : range;
+    }
+
+    /**
+     * Add the member to every ring
+     *
+     * @return true if the member was not already present
+     */
+    public boolean add(Digest member) {
+        if (!members.add(check(member))) {
+            return false;
+        }
+        for (int r = 0; r < rings.length; r++) {
+            var position = position(member, r);
+            var ring = rings[r];
+            var index = ring.positions.binarySearch(position);
+            var insertion = index < 0 ? -(index + 1) : index;
+            ring.positions.insert(insertion, position);
+            ring.members.add(insertion, member);
+        }
+        return true;
+    }
+
+    public boolean contains(Digest member) {
+        return members.contains(member);
+    }
+
+    /**
+     * Answer the number of members whose positions on the ring lie in the clockwise arc (from, to]. If from equals to
+     * the arc is the entire ring
+     */
+    public int count(int ring, Digest from, Digest to) {
+        var r = rings[ring];
+        var start = r.upper(from);
+        var end = r.upper(to);
+        var size = r.members.size();
+        return from.compareTo(to) < 0 ? end - start : size - start + end;
+    }
+
+    /**
+     * Apply the action to the members whose positions on the ring lie in the clockwise arc (from, to], in clockwise
+     * order. If from equals to the arc is the entire ring
+     */
+    public void forEach(int ring, Digest from, Digest to, Consumer<Digest> action) {
+        var r = rings[ring];
+        var size = r.members.size();
+        var index = r.upper(from);
+        for (int i = count(ring, from, to); i > 0; i--, index++) {
+            action.accept(r.members.get(index % size));
+        }
+    }
+
+    /**
+     * Answer the member at the index of the ring, in ascending order of position
+     */
+    public Digest get(int ring, int index) {
+        return rings[ring].members.get(index);
+    }
+
+    public DigestAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    public Digest getContext() {
+        return context;
+    }
+
+    /**
+     * Answer the position of the member on the ring
+     */
+    public Digest position(Digest member, int ring) {
+        return member.prefix(context, ring);
+    }
+
+    /**
+     * Answer the position at the index of the ring. The positions of a ring are in ascending order
+     */
+    public Digest positionAt(int ring, int index) {
+        return rings[ring].positions.get(index);
+    }
+
+    /**
+     * Answer the member whose position is the nearest counter clockwise of the point on the ring, wrapping around, or
+     * null if empty
+     */
+    public Digest predecessor(int ring, Digest point) {
+        var r = rings[ring];
+        var size = r.members.size();
+        if (size == 0) {
+            return null;
+        }
+        var index = r.positions.binarySearch(point);
+        var predecessor = (index < 0 ? -(index + 1) : index) - 1;
+        return r.members.get(predecessor < 0 ? size - 1 : predecessor);
+    }
+
+    public int rings() {
+        return rings.length;
+    }
+
+    /**
+     * Remove the member from every ring
+     *
+     * @return true if the member was present
+     */
+    public boolean remove(Digest member) {
+        if (!members.remove(check(member))) {
+            return false;
+        }
+        for (int r = 0; r < rings.length; r++) {
+            var ring = rings[r];
+            var index = ring.positions.binarySearch(position(member, r));
+            ring.positions.remove(index);
+            ring.members.remove(index);
+        }
+        return true;
+    }
+
+    public int size() {
+        return members.size();
+    }
+
+    /**
+     * Answer the member whose position is the nearest clockwise of the point on the ring, wrapping around, or null if
+     * empty
+     */
+    public Digest successor(int ring, Digest point) {
+        var r = rings[ring];
+        var size = r.members.size();
+        if (size == 0) {
+            return null;
+        }
+        var successor = r.upper(point);
+        return r.members.get(successor == size ? 0 : successor);
+    }
+
+    @Override
+    public String toString() {
+        return "DigestRing[" + algorithm + ":" + rings.length + ":" + size() + "]";
+    }
+
+    private Digest check(Digest digest) {
+        if (digest.getAlgorithm() != algorithm) {
+            throw new IllegalArgumentException(
+            "Digest algorithm: " + digest.getAlgorithm() + " does not match: " + algorithm);
+        }
+        return digest;
+    }
+
+    private static class Ring {
+        private final List<Digest> members;
+        private final DigestArray  positions;
+
+        private Ring(DigestArray positions, List<Digest> members) {
+            this.positions = positions;
+            this.members = members;
+        }
+
+        /**
+         * Answer the index of the first position strictly greater than the point, or the size if none
+         */
+        private int upper(Digest point) {
+            var index = positions.binarySearch(point);
+            return index < 0 ? -(index + 1) : index + 1;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2023 Hal Hildebrand. All rights reserved.
+ */
+package com.hellblazer.cryptography.hash;
+
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+
+/**
+ * A set of digests of a single DigestAlgorithm, stored as raw longs in an open addressed table. Membership may be
+ * tested directly from longs or bytes, without materializing a Digest. Not thread safe, although {@link #snapshot()}
+ * provides immutable copies that may be shared between readers.
+ *
+ * @author hal.hildebrand
+ */
+public class DigestSet extends DigestTable {
+
+    public DigestSet(DigestAlgorithm algorithm) {
+        this(algorithm, 0);
+    }
+
+    public DigestSet(DigestAlgorithm algorithm, int expected) {
+        super(algorithm, expected, false);
+    }
+
+    private DigestSet(DigestSet set) {
+        super(set);
+    }
+
+    /**
+     * Add the digest
+     *
+     * @return true if the digest was not already present
+     */
+    public boolean add(Digest digest) {
+        return insert(check(digest).getLongs(), 0) < 0;
+    }
+
+    /**
+     * Add the digest stored as longLength longs at the offset of the hash
+     *
+     * @return true if the digest was not already present
+     */
+    public boolean add(long[] hash, int offset) {
+        return insert(hash, offset) < 0;
+    }
+
+    public void clear() {
+        clearTable();
+    }
+
+    public boolean contains(ByteBuffer buffer) {
+        return find(buffer) >= 0;
+    }
+
+    public boolean contains(Digest digest) {
+        return find(check(digest).getLongs(), 0) >= 0;
+    }
+
+    public boolean contains(long[] hash, int offset) {
+        return find(hash, offset) >= 0;
+    }
+
+    public void forEach(Consumer<Digest> action) {
+        for (int slot = nextSlot(0); slot >= 0; slot = nextSlot(slot + 1)) {
+            action.accept(keyAt(slot));
+        }
+    }
+
+    /**
+     * Remove the digest
+     *
+     * @return true if the digest was present
+     */
+    public boolean remove(Digest digest) {
+        return remove(check(digest).getLongs(), 0);
+    }
+
+    /**
+     * Remove the digest stored as longLength longs at the offset of the hash
+     *
+     * @return true if the digest was present
+     */
+    public boolean remove(long[] hash, int offset) {
+        int slot = find(hash, offset);
+        if (slot < 0) {
+            return false;
+        }
+        removeSlot(slot);
+        return true;
+    }
+
+    /**
+     * Answer an immutable snapshot of the receiver, which may be read concurrently by any number of threads once
+     * safely published. The snapshot shares the receiver's tables until the receiver is next modified
+     */
+    public DigestSet snapshot() {
+        return new DigestSet(this);
+    }
+
+    /**
+     * Answer the members of the receiver, packed
+     */
+    public DigestArray toDigestArray() {
+        var array = new DigestArray(algorithm, size());
+        forEach(array::add);
+        return array;
+    }
+}
@@ -0,0 +1,272 @@
+/*
+ * Copyright (C) 2023 Hal Hildebrand. All rights reserved.
+ */
+package com.hellblazer.cryptography.hash;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.IntStream;
+
+/**
+ * Parallel most significant digit radix sort of digests in ascending unsigned order, the order of
+ * {@link Digest#compareTo(Digest)}. Each pass distributes a range into 256 buckets by one byte of the digests, reading
+ * the byte directly from the longs of the hash rather than comparing digests, and the buckets are then sorted
+ * concurrently as fork join tasks on the next byte. Large ranges are also counted and distributed in parallel chunks.
+ * Small buckets are finished with an insertion sort.
+ * <p>
+ * Uniformly distributed digests are nearly always separated within the first two or three bytes, so the sort is close
+ * to linear in the number of digests.
+ *
+ * @author hal.hildebrand
+ */
+public final class DigestSort {
+    private static final int BUCKETS        = 256;
+    private static final int INSERTION_SORT = 32;
+    private static final int MIN_CHUNK      = 16 * 1024;
+    private static final int MIN_TASK       = 1024;
+
+    private DigestSort() {
+    }
+
+    /**
+     * Sort the digests in ascending order
+     */
+    public static void sort(Digest[] digests) {
+        sort(digests, 0, digests.length);
+    }
+
+    /**
+     * Sort the digests in the range [from, to) in ascending order. Digests of differing lengths are sorted by
+     * comparison
+     */
+    public static void sort(Digest[] digests, int from, int to) {
+        if (to - from < 2) {
+            return;
+        }
+        var length = digests[from].getLongs().length;
+        for (int i = from + 1; i < to; i++) {
+            if (digests[i].getLongs().length != length) {
+                Arrays.parallelSort(digests, from, to);
+                return;
+            }
+        }
+        if (length == 0) {
+            // Zero length digests have no bytes to distribute, and are all equal
+            return;
+        }
+        ForkJoinPool.commonPool().invoke(new Digests(digests, new Digest[to - from], from, to, from, 0, length * 8));
+    }
+
+    /**
+     * Sort the first size digests packed as consecutive runs of stride longs in ascending order
+     */
+    static void sort(long[] packed, int stride, int size) {
+        if (size < 2 || stride == 0) {
+            return;
+        }
+        int length;
+        try {
+            length = Math.multiplyExact(size, stride);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Size: " + size + " too large for stride: " + stride, e);
+        }
+        ForkJoinPool.commonPool().invoke(new Packed(packed, new long[length], stride, 0, size, 0, stride * 8));
+    }
+
+    private static int byteOf(long[] hash, int offset, int depth) {
+        return (int) (hash[offset + (depth >>> 3)] >>> (56 - ((depth & 7) << 3))) & 0xff;
+    }
+
+    /**
+     * A pass of the sort over the range [low, high) of the data, distributing it by the byte at the depth through the
+     * auxiliary storage, whose indices are offset by the base
+     */
+    private static abstract class Radix extends RecursiveAction {
+        final int base;
+        final int bytes;
+        final int depth;
+        final int high;
+        final int low;
+
+        Radix(int low, int high, int base, int depth, int bytes) {
+            this.low = low;
+            this.high = high;
+            this.base = base;
+            this.depth = depth;
+            this.bytes = bytes;
+        }
+
+        @Override
+        protected void compute() {
+            var n = high - low;
+            if (n <= INSERTION_SORT) {
+                insertionSort();
+                return;
+            }
+            var chunks = n >= 2 * MIN_CHUNK ? Math.min(ForkJoinPool.getCommonPoolParallelism() * 4, n / MIN_CHUNK)
+                                            : 1;
+            var counts = new int[chunks][BUCKETS];
+            chunks(chunks).forEach(c -> {
+                var count = counts[c];
+                for (int i = chunkStart(c, chunks), end = chunkStart(c + 1, chunks); i < end; i++) {
+                    count[byteAt(i)]++;
+                }
+            });
+            var starts = new int[BUCKETS + 1];
+            var position = low;
+            for (int b = 0; b < BUCKETS; b++) {
+                starts[b] = position;
+                for (var count : counts) {
+                    var c = count[b];
+                    count[b] = position;
+                    position += c;
+                }
+            }
+            starts[BUCKETS] = high;
+            chunks(chunks).forEach(c -> {
+                var next = counts[c];
+                for (int i = chunkStart(c, chunks), end = chunkStart(c + 1, chunks); i < end; i++) {
+                    move(i, next[byteAt(i)]++ - base);
+                }
+            });
+            copyBack();
+            if (depth + 1 == bytes) {
+                return;
+            }
+            var tasks = new ArrayList<Radix>();
+            for (int b = 0; b < BUCKETS; b++) {
+                var size = starts[b + 1] - starts[b];
+                if (size >= MIN_TASK) {
+                    tasks.add(bucket(starts[b], starts[b + 1]));
+                } else if (size > 1) {
+                    bucket(starts[b], starts[b + 1]).compute();
+                }
+            }
+            invokeAll(tasks);
+        }
+
+        abstract Radix bucket(int low, int high);
+
+        abstract int byteAt(int index);
+
+        /**
+         * Copy the distributed range back from the auxiliary storage
+         */
+        abstract void copyBack();
+
+        abstract void insertionSort();
+
+        /**
+         * Move the indexed digest to the index of the auxiliary storage
+         */
+        abstract void move(int index, int aux);
+
+        private int chunkStart(int chunk, int chunks) {
+            return low + (int) ((long) (high - low) * chunk / chunks);
+        }
+
+        private IntStream chunks(int chunks) {
+            var range = IntStream.range(0, chunks);
+            return chunks > 1 ? range.parallel() : range;
+        }
+    }
+
+    private static class Digests extends Radix {
+        private final Digest[] aux;
+        private final Digest[] digests;
+
+        private Digests(Digest[] digests, Digest[] aux, int low, int high, int base, int depth, int bytes) {
+            super(low, high, base, depth, bytes);
+            this.digests = digests;
+            this.aux = aux;
+        }
+
+        @Override
+        Radix bucket(int low, int high) {
+            return new Digests(digests, aux, low, high, base, depth + 1, bytes);
+        }
+
+        @Override
+        int byteAt(int index) {
+            return byteOf(digests[index].getLongs(), 0, depth);
+        }
+
+        @Override
+        void copyBack() {
+            System.arraycopy(aux, low - base, digests, low, high - low);
+        }
+
+        @Override
+        void insertionSort() {
+            for (int i = low + 1; i < high; i++) {
+                var digest = digests[i];
+                int j = i - 1;
+                while (j >= low && digests[j].compareTo(digest) > 0) {
+                    digests[j + 1] = digests[j];
+                    j--;
+                }
+                digests[j + 1] = digest;
+            }
+        }
+
+        @Override
+        void move(int index, int aux) {
+            this.aux[aux] = digests[index];
+        }
+    }
+
+    private static class Packed extends Radix {
+        private final long[] aux;
+        private final long[] data;
+        private final int    stride;
+
+        private Packed(long[] data, long[] aux, int stride, int low, int high, int depth, int bytes) {
+            super(low, high, 0, depth, bytes);
+            this.data = data;
+            this.aux = aux;
+            this.stride = stride;
+        }
+
+        @Override
+        Radix bucket(int low, int high) {
+            return new Packed(data, aux, stride, low, high, depth + 1, bytes);
+        }
+
+        @Override
+        int byteAt(int index) {
+            return byteOf(data, index * stride, depth);
+        }
+
+        @Override
+        void copyBack() {
+            System.arraycopy(aux, low * stride, data, low * stride, (high - low) * stride);
+        }
+
+        @Override
+        void insertionSort() {
+            var scratch = new long[stride];
+            for (int i = low + 1; i < high; i++) {
+                System.arraycopy(data, i * stride, scratch, 0, stride);
+                int j = i - 1;
+                while (j >= low && compare(j, scratch) > 0) {
+                    System.arraycopy(data, j * stride, data, (j + 1) * stride, stride);
+                    j--;
+                }
+                System.arraycopy(scratch, 0, data, (j + 1) * stride, stride);
+            }
+        }
+
+        @Override
+        void move(int index, int aux) {
+            System.arraycopy(data, index * stride, this.aux, aux * stride, stride);
+        }
+
+        private int compare(int index, long[] hash) {
+            var offset = index * stride;
+            var i = Arrays.mismatch(data, offset, offset + stride, hash, 0, stride);
+            return i < 0 ? 0 : Long.compareUnsigned(data[offset + i], hash[i]);
+        }
+    }
+}
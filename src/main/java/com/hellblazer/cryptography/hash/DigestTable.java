@@ -0,0 +1,297 @@
+/*
+ * Copyright (C) 2023 Hal Hildebrand. All rights reserved.
+ */
+package com.hellblazer.cryptography.hash;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Open addressed hash table of digests of a single DigestAlgorithm, with the longs of each key stored inline in one
+ * long[] and linear probing. Removal shifts displaced keys back rather than leaving tombstones, so probe lengths
+ * depend only on the current occupancy.
+ * <p>
+ * Snapshots share the tables of the receiver, which copies them before its next mutation. A snapshot is therefore
+ * never modified after creation, and may be read concurrently once safely published.
+ *
+ * @author hal.hildebrand
+ */
+abstract class DigestTable {
+    private static final int  DEFAULT_CAPACITY = 16;
+    private static final long PHI              = 0x9E3779B97F4A7C15L;
+
+    protected final DigestAlgorithm algorithm;
+    protected final int             stride;
+    private final   boolean         frozen;
+    private         long[]          keys;
+    private         int             mask;
+    private         boolean         shared;
+    private         int             size;
+    private         long[]          used;
+    private         Object[]        values;
+
+    DigestTable(DigestAlgorithm algorithm, int expected, boolean mapped) {
+        if (algorithm.longLength() == 0) {
+            throw new IllegalArgumentException("Cannot hash digests of: " + algorithm);
+        }
+        this.algorithm = algorithm;
+        this.stride = algorithm.longLength();
+        this.frozen = false;
+        allocate(capacityFor(Math.max(expected, DEFAULT_CAPACITY)), mapped);
+    }
+
+    /**
+     * Snapshot constructor
+     */
+    DigestTable(DigestTable table) {
+        algorithm = table.algorithm;
+        stride = table.stride;
+        frozen = true;
+        keys = table.keys;
+        mask = table.mask;
+        size = table.size;
+        used = table.used;
+        values = table.values;
+        table.shared = true;
+    }
+
+    private static int capacityFor(int expected) {
+        // keep the load at or below 2/3, beyond which linear probing degrades sharply
+        var capacity = Integer.highestOneBit(Math.max(1, expected + (expected >> 1)) - 1) << 1;
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Table too large: " + expected);
+        }
+        return capacity;
+    }
+
+    private static long spread(long h) {
+        return h ^ (h >>> 32);
+    }
+
+    public DigestAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[" + algorithm + ":" + size + "]";
+    }
+
+    Digest check(Digest digest) {
+        if (digest.getAlgorithm() != algorithm) {
+            throw new IllegalArgumentException(
+            "Digest algorithm: " + digest.getAlgorithm() + " does not match: " + algorithm);
+        }
+        return digest;
+    }
+
+    void clearTable() {
+        if (frozen) {
+            throw new UnsupportedOperationException("Snapshots are immutable");
+        }
+        if (shared) {
+            allocate(keys.length / stride, values != null);
+            shared = false;
+        } else {
+            Arrays.fill(used, 0);
+            if (values != null) {
+                Arrays.fill(values, null);
+            }
+        }
+        size = 0;
+    }
+
+    /**
+     * Answer the slot of the key stored at the offset of the hash, or -1 if absent
+     */
+    int find(long[] hash, int offset) {
+        if (hash.length - offset < stride) {
+            throw new IllegalArgumentException("Require: " + stride + " longs, found: " + (hash.length - offset));
+        }
+        for (int slot = home(hash, offset); occupied(slot); slot = (slot + 1) & mask) {
+            if (Arrays.equals(keys, slot * stride, slot * stride + stride, hash, offset, offset + stride)) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Answer the slot of the key stored as big endian bytes at the buffer's position, or -1 if absent. The buffer's
+     * position is not changed
+     */
+    int find(ByteBuffer buffer) {
+        if (buffer.remaining() < stride * 8) {
+            throw new IllegalArgumentException("Require: " + stride * 8 + " bytes, found: " + buffer.remaining());
+        }
+        var position = buffer.position();
+        var reverse = buffer.order() == ByteOrder.LITTLE_ENDIAN;
+        long h = 0;
+        for (int i = 0; i < stride; i++) {
+            h = (h ^ longAt(buffer, position + i * 8, reverse)) * PHI;
+        }
+        search:
+        for (int slot = (int) spread(h) & mask; occupied(slot); slot = (slot + 1) & mask) {
+            for (int i = 0; i < stride; i++) {
+                if (keys[slot * stride + i] != longAt(buffer, position + i * 8, reverse)) {
+                    continue search;
+                }
+            }
+            return slot;
+        }
+        return -1;
+    }
+
+    /**
+     * Insert the key stored at the offset of the hash if absent
+     *
+     * @return the slot of the key if already present, otherwise -(slot + 1) of the newly inserted key
+     */
+    int insert(long[] hash, int offset) {
+        mutate();
+        int slot = find(hash, offset);
+        if (slot >= 0) {
+            return slot;
+        }
+        if (size + 1 > threshold()) {
+            resize(keys.length / stride * 2);
+        }
+        slot = home(hash, offset);
+        while (occupied(slot)) {
+            slot = (slot + 1) & mask;
+        }
+        System.arraycopy(hash, offset, keys, slot * stride, stride);
+        used[slot >>> 6] |= 1L << slot;
+        size++;
+        return -(slot + 1);
+    }
+
+    Digest keyAt(int slot) {
+        return new Digest(algorithm, Arrays.copyOfRange(keys, slot * stride, slot * stride + stride));
+    }
+
+    /**
+     * Answer the next occupied slot at or after the supplied slot, or -1 if none
+     */
+    int nextSlot(int slot) {
+        var capacity = mask + 1;
+        if (slot >= capacity) {
+            return -1;
+        }
+        int word = slot >>> 6;
+        long bits = used[word] & (-1L << slot);
+        while (bits == 0) {
+            if (++word == used.length) {
+                return -1;
+            }
+            bits = used[word];
+        }
+        return (word << 6) + Long.numberOfTrailingZeros(bits);
+    }
+
+    /**
+     * Remove the key in the slot, shifting back any keys displaced past it
+     */
+    void removeSlot(int slot) {
+        mutate();
+        int hole = slot;
+        for (int j = (hole + 1) & mask; occupied(j); j = (j + 1) & mask) {
+            int home = home(keys, j * stride);
+            if (((j - home) & mask) >= ((j - hole) & mask)) {
+                System.arraycopy(keys, j * stride, keys, hole * stride, stride);
+                if (values != null) {
+                    values[hole] = values[j];
+                }
+                hole = j;
+            }
+        }
+        used[hole >>> 6] &= ~(1L << hole);
+        if (values != null) {
+            values[hole] = null;
+        }
+        size--;
+    }
+
+    Object valueAt(int slot) {
+        return values[slot];
+    }
+
+    void valueAt(int slot, Object value) {
+        mutate();
+        values[slot] = value;
+    }
+
+    private void allocate(int capacity, boolean mapped) {
+        keys = new long[Math.multiplyExact(capacity, stride)];
+        used = new long[Math.max(1, capacity >>> 6)];
+        values = mapped ? new Object[capacity] : null;
+        mask = capacity - 1;
+    }
+
+    private int home(long[] hash, int offset) {
+        long h = 0;
+        for (int i = 0; i < stride; i++) {
+            h = (h ^ hash[offset + i]) * PHI;
+        }
+        return (int) spread(h) & mask;
+    }
+
+    private long longAt(ByteBuffer buffer, int index, boolean reverse) {
+        var l = buffer.getLong(index);
+        return reverse ? Long.reverseBytes(l) : l;
+    }
+
+    /**
+     * Copy the shared tables before mutating them
+     */
+    private void mutate() {
+        if (frozen) {
+            throw new UnsupportedOperationException("Snapshots are immutable");
+        }
+        if (shared) {
+            keys = keys.clone();
+            used = used.clone();
+            values = values == null ? null : values.clone();
+            shared = false;
+        }
+    }
+
+    private boolean occupied(int slot) {
+        return (used[slot >>> 6] & (1L << slot)) != 0;
+    }
+
+    private void resize(int capacity) {
+        var oldKeys = keys;
+        var oldUsed = used;
+        var oldValues = values;
+        allocate(capacity, oldValues != null);
+        for (int word = 0; word < oldUsed.length; word++) {
+            for (long bits = oldUsed[word]; bits != 0; bits &= bits - 1) {
+                int from = (word << 6) + Long.numberOfTrailingZeros(bits);
+                int slot = home(oldKeys, from * stride);
+                while (occupied(slot)) {
+                    slot = (slot + 1) & mask;
+                }
+                System.arraycopy(oldKeys, from * stride, keys, slot * stride, stride);
+                used[slot >>> 6] |= 1L << slot;
+                if (oldValues != null) {
+                    values[slot] = oldValues[from];
+                }
+            }
+        }
+    }
+
+    private int threshold() {
+        var capacity = mask + 1;
+        return capacity - capacity / 3;
+    }
+}
@@ -0,0 +1,512 @@
+/*
+ * Copyright (C) 2023 Hal Hildebrand. All rights reserved.
+ */
+package com.hellblazer.cryptography.hash;
+
+import com.google.protobuf.ByteOutput;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.MessageLite;
+import com.google.protobuf.UnsafeByteOperations;
+import org.bouncycastle.crypto.ExtendedDigest;
+import org.bouncycastle.crypto.Xof;
+import org.bouncycastle.crypto.digests.Blake3Digest;
+import org.bouncycastle.crypto.digests.EncodableDigest;
+import org.bouncycastle.util.Memoable;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * An incremental, resettable hash computation for a DigestAlgorithm. Buffers are fed straight to the underlying digest
+ * engine; heap buffers through their backing array, and direct or read only buffers through a reusable scratch array.
+ * <p>
+ * Hashers obtained from {@link DigestAlgorithm#newHasher()} are drawn from a per algorithm pool of engines, and should
+ * be closed when no longer needed, returning the engine to the pool. A Hasher may be reused for any number of
+ * computations before it is closed, as {@link #finish()} resets the receiver. Keyed Hashers from
+ * {@link DigestAlgorithm#newMac(byte[])} retain their key across resets and are never pooled, as are resumable Hashers
+ * from {@link DigestAlgorithm#newResumableHasher()}. Hashers are not thread safe.
+ *
+ * @author hal.hildebrand
+ */
+abstract public class Hasher implements AutoCloseable {
+    private static final int SCRATCH_SIZE = 8 * 1024;
+
+    protected final DigestAlgorithm algorithm;
+    private         ByteOutput      output;
+    private         boolean         released;
+    private         byte[]          scratch;
+    private         OutputStream    stream;
+
+    Hasher(DigestAlgorithm algorithm) {
+        this.algorithm = algorithm;
+    }
+
+    /**
+     * Reset the receiver and return it to the pool of its algorithm. The receiver must not be used after closing, and
+     * closing it again has no effect
+     */
+    @Override
+    public void close() {
+        if (released) {
+            return;
+        }
+        released = true;
+        algorithm.release(this);
+    }
+
+    /**
+     * Answer the digest of the bytes accumulated since the last reset, resetting the receiver
+     */
+    public Digest finish() {
+        ensureOpen();
+        return new Digest(algorithm, doFinal());
+    }
+
+    /**
+     * Answer count independent digests of the bytes accumulated since the last reset, resetting the receiver
+     *
+     * @see DigestAlgorithm#xof(int, ByteBuffer...)
+     */
+    public Digest[] finish(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Invalid count: " + count);
+        }
+        ensureOpen();
+        return algorithm.expand(this, count);
+    }
+
+    public DigestAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * Answer the encoded intermediate state of the receiver, from which {@link DigestAlgorithm#resume(byte[])}
+     * restores a Hasher continuing the computation of the bytes accumulated since the last reset. Only Hashers from
+     * {@link DigestAlgorithm#newResumableHasher()} and {@link DigestAlgorithm#resume(byte[])} support state export
+     */
+    public byte[] getState() {
+        throw new UnsupportedOperationException("State export not supported by this Hasher of: " + algorithm);
+    }
+
+    /**
+     * Discard the accumulated state of the receiver
+     */
+    public Hasher reset() {
+        ensureOpen();
+        engineReset();
+        return this;
+    }
+
+    public Hasher update(byte value) {
+        ensureOpen();
+        var buf = scratch();
+        buf[0] = value;
+        engineUpdate(buf, 0, 1);
+        return this;
+    }
+
+    public Hasher update(byte[] bytes) {
+        return update(bytes, 0, bytes.length);
+    }
+
+    public Hasher update(byte[] bytes, int offset, int length) {
+        ensureOpen();
+        engineUpdate(bytes, offset, length);
+        return this;
+    }
+
+    /**
+     * Update the receiver with the remaining bytes of the buffer. The buffer's position is advanced to its limit
+     */
+    public Hasher update(ByteBuffer buffer) {
+        ensureOpen();
+        engineUpdate(buffer);
+        return this;
+    }
+
+    public Hasher update(ByteString byteString) {
+        ensureOpen();
+        if (output == null) {
+            output = new HasherOutput();
+        }
+        try {
+            UnsafeByteOperations.unsafeWriteTo(byteString, output);
+        } catch (IOException e) {
+            throw new IllegalStateException("Error reading from byte string, cannot generate hash", e);
+        }
+        return this;
+    }
+
+    /**
+     * Update the receiver with the remaining bytes of the stream. The stream is not closed
+     */
+    public Hasher update(InputStream is) {
+        ensureOpen();
+        var buf = scratch();
+        try {
+            for (int read = is.read(buf); read >= 0; read = is.read(buf)) {
+                engineUpdate(buf, 0, read);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Error reading from buffers, cannot generate hash", e);
+        }
+        return this;
+    }
+
+    /**
+     * Update the receiver with the serialized bytes of the message, which are encoded directly into the digest engine
+     * without building an intermediate byte array
+     */
+    public Hasher update(MessageLite message) {
+        ensureOpen();
+        var size = message.getSerializedSize();
+        try {
+            if (size <= SCRATCH_SIZE) {
+                var buf = scratch();
+                var coded = CodedOutputStream.newInstance(buf, 0, size);
+                message.writeTo(coded);
+                coded.checkNoSpaceLeft();
+                engineUpdate(buf, 0, size);
+            } else {
+                if (stream == null) {
+                    stream = new HasherStream();
+                }
+                var coded = CodedOutputStream.newInstance(stream, SCRATCH_SIZE);
+                message.writeTo(coded);
+                coded.flush();
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Error serializing message, cannot generate hash", e);
+        }
+        return this;
+    }
+
+    /**
+     * Update the receiver with the big endian bytes of the value
+     */
+    public Hasher update(long value) {
+        ensureOpen();
+        var buf = scratch();
+        for (int i = 7; i >= 0; i--) {
+            buf[i] = (byte) value;
+            value >>>= 8;
+        }
+        engineUpdate(buf, 0, 8);
+        return this;
+    }
+
+    /**
+     * Answer the digest of the bytes accumulated since the last reset, resetting the receiver
+     */
+    abstract byte[] doFinal();
+
+    /**
+     * Answer the extendable output of the requested length of the bytes accumulated since the last reset, resetting
+     * the receiver
+     */
+    byte[] doFinal(int length) {
+        throw new UnsupportedOperationException("Extendable output not supported by: " + algorithm);
+    }
+
+    abstract void engineReset();
+
+    abstract void engineUpdate(byte[] bytes, int offset, int length);
+
+    void engineUpdate(ByteBuffer buffer) {
+        if (buffer.hasArray()) {
+            engineUpdate(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            buffer.position(buffer.limit());
+            return;
+        }
+        var buf = scratch();
+        while (buffer.hasRemaining()) {
+            var length = Math.min(buf.length, buffer.remaining());
+            buffer.get(buf, 0, length);
+            engineUpdate(buf, 0, length);
+        }
+    }
+
+    /**
+     * Fail fast if the receiver has been closed
+     */
+    void ensureOpen() {
+        if (released) {
+            throw new IllegalStateException("Hasher has been closed");
+        }
+    }
+
+    /**
+     * Answer true if the receiver computes a MAC, and so must not be returned to the pool of its algorithm
+     */
+    boolean isKeyed() {
+        return false;
+    }
+
+    /**
+     * Answer true if the receiver exports its state, and so must not be returned to the pool of its algorithm
+     */
+    boolean isResumable() {
+        return false;
+    }
+
+    /**
+     * Reopen the receiver, drawn again from the pool of its algorithm
+     */
+    void reissue() {
+        released = false;
+    }
+
+    private byte[] scratch() {
+        if (scratch == null) {
+            scratch = new byte[SCRATCH_SIZE];
+        }
+        return scratch;
+    }
+
+    static class BcHasher extends Hasher {
+        private final ExtendedDigest digester;
+        /**
+         * The initial state of engines whose reset() does not discard all accumulated state, restored on reset
+         */
+        private final Memoable       initial;
+        private final boolean        keyed;
+
+        BcHasher(DigestAlgorithm algorithm, ExtendedDigest digester) {
+            this(algorithm, digester, false);
+        }
+
+        BcHasher(DigestAlgorithm algorithm, ExtendedDigest digester, boolean keyed) {
+            super(algorithm);
+            this.digester = digester;
+            this.keyed = keyed;
+            // Blake3Digest.reset() retains the chaining values of completed chunks
+            this.initial = digester instanceof Blake3Digest blake3 ? blake3.copy() : null;
+        }
+
+        @Override
+        byte[] doFinal() {
+            var digest = new byte[algorithm.digestLength()];
+            digester.doFinal(digest, 0);
+            return digest;
+        }
+
+        @Override
+        byte[] doFinal(int length) {
+            if (!(digester instanceof Xof xof)) {
+                return super.doFinal(length);
+            }
+            var output = new byte[length];
+            xof.doFinal(output, 0, length);
+            return output;
+        }
+
+        @Override
+        void engineReset() {
+            if (initial == null) {
+                digester.reset();
+            } else {
+                ((Memoable) digester).reset(initial);
+            }
+        }
+
+        @Override
+        void engineUpdate(byte[] bytes, int offset, int length) {
+            digester.update(bytes, offset, length);
+        }
+
+        @Override
+        boolean isKeyed() {
+            return keyed;
+        }
+    }
+
+    static class JcaHasher extends Hasher {
+        private final MessageDigest md;
+
+        JcaHasher(DigestAlgorithm algorithm, MessageDigest md) {
+            super(algorithm);
+            this.md = md;
+        }
+
+        @Override
+        byte[] doFinal() {
+            return md.digest();
+        }
+
+        @Override
+        void engineReset() {
+            md.reset();
+        }
+
+        @Override
+        void engineUpdate(byte[] bytes, int offset, int length) {
+            md.update(bytes, offset, length);
+        }
+
+        @Override
+        void engineUpdate(ByteBuffer buffer) {
+            md.update(buffer);
+        }
+    }
+
+    /**
+     * HMAC through the JCA, for algorithms without a native keyed mode
+     */
+    static class MacHasher extends Hasher {
+        private final Mac mac;
+
+        MacHasher(DigestAlgorithm algorithm, String macAlgorithm, byte[] key) {
+            super(algorithm);
+            try {
+                mac = Mac.getInstance(macAlgorithm);
+                mac.init(new SecretKeySpec(key, macAlgorithm));
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("Unable to retrieve " + macAlgorithm + " Mac instance", e);
+            } catch (InvalidKeyException e) {
+                throw new IllegalArgumentException("Invalid " + macAlgorithm + " key", e);
+            }
+        }
+
+        @Override
+        byte[] doFinal() {
+            return mac.doFinal();
+        }
+
+        @Override
+        void engineReset() {
+            mac.reset();
+        }
+
+        @Override
+        void engineUpdate(byte[] bytes, int offset, int length) {
+            mac.update(bytes, offset, length);
+        }
+
+        @Override
+        void engineUpdate(ByteBuffer buffer) {
+            mac.update(buffer);
+        }
+
+        @Override
+        boolean isKeyed() {
+            return true;
+        }
+    }
+
+    static class NullHasher extends Hasher {
+        private static final byte[] EMPTY = new byte[0];
+
+        NullHasher(DigestAlgorithm algorithm) {
+            super(algorithm);
+        }
+
+        @Override
+        public Hasher update(ByteString byteString) {
+            return this;
+        }
+
+        @Override
+        public Hasher update(MessageLite message) {
+            return this;
+        }
+
+        @Override
+        byte[] doFinal() {
+            return EMPTY;
+        }
+
+        @Override
+        void engineReset() {
+        }
+
+        @Override
+        void engineUpdate(byte[] bytes, int offset, int length) {
+        }
+
+        @Override
+        void engineUpdate(ByteBuffer buffer) {
+            buffer.position(buffer.limit());
+        }
+    }
+
+    /**
+     * A Hasher on an engine whose intermediate state may be encoded. The state is prefixed with the digest code of the
+     * algorithm
+     */
+    static class ResumableHasher extends BcHasher {
+        private final EncodableDigest encodable;
+
+        <T extends ExtendedDigest & EncodableDigest> ResumableHasher(DigestAlgorithm algorithm, T digester) {
+            super(algorithm, digester);
+            this.encodable = digester;
+        }
+
+        @Override
+        public byte[] getState() {
+            ensureOpen();
+            var encoded = encodable.getEncodedState();
+            var state = new byte[encoded.length + 1];
+            state[0] = algorithm.digestCode();
+            System.arraycopy(encoded, 0, state, 1, encoded.length);
+            return state;
+        }
+
+        @Override
+        boolean isResumable() {
+            return true;
+        }
+    }
+
+    /**
+     * Sink for messages too large to serialize into the scratch array
+     */
+    private class HasherStream extends OutputStream {
+        @Override
+        public void write(byte[] b, int off, int len) {
+            engineUpdate(b, off, len);
+        }
+
+        @Override
+        public void write(int b) {
+            update((byte) b);
+        }
+    }
+
+    /**
+     * Zero copy sink for ByteStrings
+     */
+    private class HasherOutput extends ByteOutput {
+        @Override
+        public void write(byte value) {
+            update(value);
+        }
+
+        @Override
+        public void write(byte[] value, int offset, int length) {
+            engineUpdate(value, offset, length);
+        }
+
+        @Override
+        public void write(ByteBuffer value) {
+            engineUpdate(value);
+        }
+
+        @Override
+        public void writeLazy(byte[] value, int offset, int length) {
+            engineUpdate(value, offset, length);
+        }
+
+        @Override
+        public void writeLazy(ByteBuffer value) {
+            engineUpdate(value);
+        }
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ * Copyright (C) 2023 Hal Hildebrand. All rights reserved.
+ */
+package com.hellblazer.cryptography.hash;
+
+import com.google.protobuf.UnsafeByteOperations;
+import com.hellblazer.cryptography.proto.LtHash_;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * An incremental, homomorphic multiset hash in the style of LtHash. Each element is expanded by the BLAKE3 extendable
+ * output function into 1024 lanes of 16 bits, and the accumulator is the lane wise sum, modulo 2^16, of the expansions
+ * of its elements. Adding or removing an element thus costs a single expansion regardless of the size of the multiset,
+ * two accumulators merge by adding their lanes, and the accumulator of a multiset is independent of the order in which
+ * its elements were added. Unlike the XOR of digests, adding an element twice does not cancel it out.
+ * <p>
+ * The lanes are packed four to a long and summed with SWAR arithmetic, masking the carry out of each lane. The
+ * accumulator also tracks the net number of elements added. Not thread safe; accumulators built concurrently are
+ * combined with {@link #merge(LtHash)}.
+ * <p>
+ * See <a href="https://eprint.iacr.org/2019/227">Securing Update Propagation with Homomorphic Hashing</a>
+ *
+ * @author hal.hildebrand
+ */
+public class LtHash {
+    public static final int LANES = 1024;
+
+    private static final int             BYTES     = LANES * 2;
+    private static final DigestAlgorithm EXPANSION = DigestAlgorithm.BLAKE3_256;
+    private static final long            HIGH      = 0x8000800080008000L;
+    private static final int             WORDS     = LANES / 4;
+
+    private final long[] sum;
+    private       long   count;
+
+    public LtHash() {
+        this(new long[WORDS], 0);
+    }
+
+    public LtHash(LtHash_ state) {
+        this(new long[WORDS], state.getCount());
+        if (state.getLanes().size() != BYTES) {
+            throw new IllegalArgumentException("Invalid lanes length: " + state.getLanes().size());
+        }
+        state.getLanes().asReadOnlyByteBuffer().order(ByteOrder.LITTLE_ENDIAN).asLongBuffer().get(sum);
+    }
+
+    private LtHash(long[] sum, long count) {
+        this.sum = sum;
+        this.count = count;
+    }
+
+    /**
+     * Answer the accumulator of the elements, expanding the elements across the common fork join pool
+     */
+    public static LtHash of(Collection<Digest> elements) {
+        return elements.parallelStream().collect(LtHash::new, LtHash::add, LtHash::merge);
+    }
+
+    /**
+     * Answer the lane wise sum of the packed lanes, modulo 2^16
+     */
+    static long add(long a, long b) {
+        return ((a & ~HIGH) + (b & ~HIGH)) ^ ((a ^ b) & HIGH);
+    }
+
+    /**
+     * Answer the lane wise difference of the packed lanes, modulo 2^16
+     */
+    static long subtract(long a, long b) {
+        return ((a | HIGH) - (b & ~HIGH)) ^ ((a ^ ~b) & HIGH);
+    }
+
+    private static byte[] expand(Consumer<Hasher> element) {
+        try (var hasher = EXPANSION.newHasher()) {
+            element.accept(hasher);
+            return hasher.doFinal(BYTES);
+        }
+    }
+
+    private static void update(Hasher hasher, Digest element) {
+        for (var word : element.getLongs()) {
+            hasher.update(word);
+        }
+    }
+
+    public LtHash add(byte[] element) {
+        return accumulate(expand(h -> h.update(element)));
+    }
+
+    /**
+     * Add the remaining bytes of the buffer as an element. The buffer's position is advanced to its limit
+     */
+    public LtHash add(ByteBuffer element) {
+        return accumulate(expand(h -> h.update(element)));
+    }
+
+    /**
+     * Add the bytes of the digest as an element
+     */
+    public LtHash add(Digest element) {
+        return accumulate(expand(h -> update(h, element)));
+    }
+
+    public LtHash copy() {
+        return new LtHash(sum.clone(), count);
+    }
+
+    /**
+     * Answer the digest of the lanes of the receiver, a compact fingerprint of the multiset
+     */
+    public Digest digest(DigestAlgorithm algorithm) {
+        return algorithm.digest(ByteBuffer.wrap(lanes()));
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        return obj instanceof LtHash other && count == other.count && Arrays.equals(sum, other.sum);
+    }
+
+    /**
+     * Answer the net number of elements added
+     */
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(sum);
+    }
+
+    /**
+     * Answer true if the receiver is the accumulator of the empty multiset
+     */
+    public boolean isEmpty() {
+        if (count != 0) {
+            return false;
+        }
+        for (var word : sum) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Answer the unsigned value of the indexed lane
+     */
+    public int lane(int index) {
+        return (int) (sum[index >>> 2] >>> ((index & 3) << 4)) & 0xFFFF;
+    }
+
+    /**
+     * Add the elements of the other accumulator to the receiver
+     */
+    public LtHash merge(LtHash other) {
+        for (int i = 0; i < WORDS; i++) {
+            sum[i] = add(sum[i], other.sum[i]);
+        }
+        count += other.count;
+        return this;
+    }
+
+    public LtHash remove(byte[] element) {
+        return deduct(expand(h -> h.update(element)));
+    }
+
+    /**
+     * Remove the remaining bytes of the buffer as an element. The buffer's position is advanced to its limit
+     */
+    public LtHash remove(ByteBuffer element) {
+        return deduct(expand(h -> h.update(element)));
+    }
+
+    /**
+     * Remove the bytes of the digest as an element
+     */
+    public LtHash remove(Digest element) {
+        return deduct(expand(h -> update(h, element)));
+    }
+
+    /**
+     * Remove the elements of the other accumulator from the receiver
+     */
+    public LtHash subtract(LtHash other) {
+        for (int i = 0; i < WORDS; i++) {
+            sum[i] = subtract(sum[i], other.sum[i]);
+        }
+        count -= other.count;
+        return this;
+    }
+
+    public LtHash_ toLtHashe() {
+        return LtHash_.newBuilder().setLanes(UnsafeByteOperations.unsafeWrap(lanes())).setCount(count).build();
+    }
+
+    @Override
+    public String toString() {
+        return "LtHash[" + count + ":" + digest(DigestAlgorithm.DEFAULT) + "]";
+    }
+
+    private LtHash accumulate(byte[] expansion) {
+        var lanes = ByteBuffer.wrap(expansion).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < WORDS; i++) {
+            sum[i] = add(sum[i], lanes.getLong(i << 3));
+        }
+        count++;
+        return this;
+    }
+
+    private LtHash deduct(byte[] expansion) {
+        var lanes = ByteBuffer.wrap(expansion).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < WORDS; i++) {
+            sum[i] = subtract(sum[i], lanes.getLong(i << 3));
+        }
+        count--;
+        return this;
+    }
+
+    private byte[] lanes() {
+        var lanes = ByteBuffer.allocate(BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        lanes.asLongBuffer().put(sum);
+        return lanes.array();
+    }
+}
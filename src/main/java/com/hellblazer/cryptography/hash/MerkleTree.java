@@ -0,0 +1,392 @@
+/*
+ * Copyright (C) 2023 Hal Hildebrand. All rights reserved.
+ */
+package com.hellblazer.cryptography.hash;
+
+import com.hellblazer.cryptography.proto.MerkleProof_;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * An append only Merkle tree of digests, following the tree shape and domain separation of <a
+ * href="https://www.rfc-editor.org/rfc/rfc9162">RFC 9162</a>. Leaves are hashed as H(0x00 || leaf) and interior nodes
+ * as H(0x01 || left || right), using the tree's DigestAlgorithm.
+ * <p>
+ * Every complete subtree is retained, level by level, so appending a leaf is O(log n), as is computing the root, and
+ * inclusion and consistency proofs for any earlier size of the tree require no rehashing of leaves. Not thread safe.
+ *
+ * @author hal.hildebrand
+ */
+public class MerkleTree {
+    private static final byte[] LEAF = { 0 };
+    private static final byte[] NODE = { 1 };
+
+    private final DigestAlgorithm    algorithm;
+    private final List<List<Digest>> levels = new ArrayList<>();
+
+    public MerkleTree(DigestAlgorithm algorithm) {
+        this.algorithm = algorithm;
+        levels.add(new ArrayList<>());
+    }
+
+    private MerkleTree(DigestAlgorithm algorithm, List<List<Digest>> levels) {
+        this.algorithm = algorithm;
+        this.levels.addAll(levels);
+    }
+
+    /**
+     * Build the tree of the leaves bottom up, hashing each level across the common fork join pool when large enough
+     */
+    public static MerkleTree build(DigestAlgorithm algorithm, Digest[] leaves) {
+        var levels = new ArrayList<List<Digest>>();
+        var nodes = new Digest[leaves.length];
+        range(nodes.length).forEach(i -> nodes[i] = leafHash(algorithm, leaves[i]));
+        levels.add(new ArrayList<>(Arrays.asList(nodes)));
+        for (var level = nodes; level.length > 1; ) {
+            var children = level;
+            var parents = new Digest[children.length / 2];
+            range(parents.length).forEach(i -> parents[i] = nodeHash(algorithm, children[2 * i], children[2 * i + 1]));
+            levels.add(new ArrayList<>(Arrays.asList(parents)));
+            level = parents;
+        }
+        return new MerkleTree(algorithm, levels);
+    }
+
+    /**
+     * Answer the hash of the leaf in a tree using the algorithm
+     */
+    public static Digest leafHash(DigestAlgorithm algorithm, Digest leaf) {
+        try (var hasher = algorithm.newHasher()) {
+            hasher.update(LEAF);
+            for (long l : leaf.getLongs()) {
+                hasher.update(l);
+            }
+            return hasher.finish();
+        }
+    }
+
+    private static int largestPowerOfTwoLessThan(int n) {
+        return Integer.highestOneBit(n - 1);
+    }
+
+    private static Digest nodeHash(DigestAlgorithm algorithm, Digest left, Digest right) {
+        try (var hasher = algorithm.newHasher()) {
+            hasher.update(NODE);
+            for (long l : left.getLongs()) {
+                hasher.update(l);
+            }
+            for (long l : right.getLongs()) {
+                hasher.update(l);
+            }
+            return hasher.finish();
+        }
+    }
+
+    private static IntStream range(int n) {
+        var range = IntStream.range(0, n);
+        return n >= DigestAlgorithm.PARALLEL_THRESHOLD ? range.parallel() : range;
+    }
+
+    /**
+     * Append the leaf to the receiver
+     *
+     * @return the index of the appended leaf
+     */
+    public int append(Digest leaf) {
+        var index = size();
+        var node = leafHash(algorithm, leaf);
+        levels.get(0).add(node);
+        for (int level = 0, i = index; (i & 1) == 1; level++, i >>= 1) {
+            node = nodeHash(algorithm, levels.get(level).get(i - 1), node);
+            if (levels.size() == level + 1) {
+                levels.add(new ArrayList<>());
+            }
+            levels.get(level + 1).add(node);
+        }
+        return index;
+    }
+
+    /**
+     * Answer the proof that the tree of the supplied earlier size is a prefix of the receiver
+     */
+    public Proof consistencyProof(int first) {
+        return consistencyProof(first, size());
+    }
+
+    /**
+     * Answer the proof that the tree of the first size is a prefix of the tree of the second size
+     */
+    public Proof consistencyProof(int first, int second) {
+        if (first < 0 || first > second || second > size()) {
+            throw new IllegalArgumentException(
+            "Invalid tree sizes: " + first + ", " + second + " for tree of size: " + size());
+        }
+        var path = new ArrayList<Digest>();
+        if (first > 0 && first < second) {
+            subproof(first, 0, second, true, path);
+        }
+        return new Proof(algorithm, first, second, path);
+    }
+
+    public DigestAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * Answer the proof of inclusion of the indexed leaf in the receiver
+     */
+    public Proof inclusionProof(int index) {
+        return inclusionProof(index, size());
+    }
+
+    /**
+     * Answer the proof of inclusion of the indexed leaf in the tree of the supplied size
+     */
+    public Proof inclusionProof(int index, int size) {
+        if (index < 0 || index >= size || size > size()) {
+            throw new IllegalArgumentException(
+            "Invalid leaf index: " + index + " in tree size: " + size + " for tree of size: " + size());
+        }
+        var path = new ArrayList<Digest>();
+        path(index, 0, size, path);
+        return new Proof(algorithm, index, size, path);
+    }
+
+    /**
+     * Answer the hash of the indexed leaf
+     */
+    public Digest leaf(int index) {
+        return levels.get(0).get(index);
+    }
+
+    /**
+     * Answer the root of the receiver. The root of the empty tree is the hash of no bytes
+     */
+    public Digest root() {
+        var size = size();
+        Digest root = null;
+        for (int level = 0; level < levels.size(); level++) {
+            if ((size >> level & 1) == 1) {
+                var node = levels.get(level).get((size >> level) - 1);
+                root = root == null ? node : nodeHash(algorithm, node, root);
+            }
+        }
+        return root == null ? algorithm.digest(new byte[0]) : root;
+    }
+
+    /**
+     * Answer the root of the tree of the supplied earlier size
+     */
+    public Digest root(int size) {
+        if (size < 0 || size > size()) {
+            throw new IllegalArgumentException("Invalid tree size: " + size + " for tree of size: " + size());
+        }
+        return size == 0 ? algorithm.digest(new byte[0]) : subtree(0, size);
+    }
+
+    public int size() {
+        return levels.get(0).size();
+    }
+
+    private void path(int index, int start, int end, List<Digest> path) {
+        var n = end - start;
+        if (n == 1) {
+            return;
+        }
+        var k = largestPowerOfTwoLessThan(n);
+        if (index < k) {
+            path(index, start, start + k, path);
+            path.add(subtree(start + k, end));
+        } else {
+            path(index - k, start + k, end, path);
+            path.add(subtree(start, start + k));
+        }
+    }
+
+    private void subproof(int first, int start, int end, boolean complete, List<Digest> path) {
+        var n = end - start;
+        if (first == n) {
+            if (!complete) {
+                path.add(subtree(start, end));
+            }
+            return;
+        }
+        var k = largestPowerOfTwoLessThan(n);
+        if (first <= k) {
+            subproof(first, start, start + k, complete, path);
+            path.add(subtree(start + k, end));
+        } else {
+            subproof(first - k, start + k, end, false, path);
+            path.add(subtree(start, start + k));
+        }
+    }
+
+    /**
+     * Answer the hash of the subtree of the leaves [start, end). Complete subtrees are retained; others are composed
+     * from their complete left subtree and the remainder
+     */
+    private Digest subtree(int start, int end) {
+        var n = end - start;
+        if (Integer.bitCount(n) == 1 && start % n == 0) {
+            return levels.get(Integer.numberOfTrailingZeros(n)).get(start / n);
+        }
+        var k = largestPowerOfTwoLessThan(n);
+        return nodeHash(algorithm, subtree(start, start + k), subtree(start + k, end));
+    }
+
+    /**
+     * An inclusion or consistency proof. For inclusion proofs the index is that of the leaf, and for consistency proofs
+     * the index is the size of the earlier tree
+     */
+    public static class Proof {
+        private final DigestAlgorithm algorithm;
+        private final int             index;
+        private final List<Digest>    path;
+        private final int             size;
+
+        public Proof(DigestAlgorithm algorithm, int index, int size, List<Digest> path) {
+            this.algorithm = algorithm;
+            this.index = index;
+            this.size = size;
+            this.path = List.copyOf(path);
+        }
+
+        public Proof(MerkleProof_ proof) {
+            algorithm = DigestAlgorithm.fromDigestCode(proof.getType());
+            index = Math.toIntExact(proof.getIndex());
+            size = Math.toIntExact(proof.getSize());
+            var longLength = algorithm.longLength();
+            if (longLength == 0 ? proof.getPathCount() != 0 : proof.getPathCount() % longLength != 0) {
+                throw new IllegalArgumentException("Invalid path length: " + proof.getPathCount());
+            }
+            var digests = new ArrayList<Digest>();
+            for (int i = 0; i < proof.getPathCount(); i += longLength) {
+                var hash = new long[longLength];
+                for (int j = 0; j < longLength; j++) {
+                    hash[j] = proof.getPath(i + j);
+                }
+                digests.add(new Digest(algorithm, hash));
+            }
+            path = List.copyOf(digests);
+        }
+
+        public static Proof from(MerkleProof_ proof) {
+            return new Proof(proof);
+        }
+
+        public DigestAlgorithm getAlgorithm() {
+            return algorithm;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public List<Digest> getPath() {
+            return path;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public MerkleProof_ toMerkleProofe() {
+            var builder = MerkleProof_.newBuilder().setType(algorithm.digestCode()).setIndex(index).setSize(size);
+            for (var d : path) {
+                for (long l : d.getLongs()) {
+                    builder.addPath(l);
+                }
+            }
+            return builder.build();
+        }
+
+        @Override
+        public String toString() {
+            return "Proof[" + index + ":" + size + " " + path + "]";
+        }
+
+        /**
+         * Answer true if the receiver proves the tree with the first root is a prefix of the tree with the second
+         * root
+         */
+        public boolean verifyConsistency(Digest firstRoot, Digest secondRoot) {
+            if (index < 0 || index > size) {
+                return false;
+            }
+            if (index == size) {
+                return path.isEmpty() && firstRoot.equals(secondRoot);
+            }
+            if (index == 0) {
+                return path.isEmpty();
+            }
+            var nodes = path;
+            if (Integer.bitCount(index) == 1) {
+                nodes = new ArrayList<>(path.size() + 1);
+                nodes.add(firstRoot);
+                nodes.addAll(path);
+            }
+            if (nodes.isEmpty()) {
+                return false;
+            }
+            int fn = index - 1;
+            int sn = size - 1;
+            while ((fn & 1) == 1) {
+                fn >>= 1;
+                sn >>= 1;
+            }
+            var fr = nodes.get(0);
+            var sr = nodes.get(0);
+            for (int i = 1; i < nodes.size(); i++) {
+                var c = nodes.get(i);
+                if (sn == 0) {
+                    return false;
+                }
+                if ((fn & 1) == 1 || fn == sn) {
+                    fr = nodeHash(algorithm, c, fr);
+                    sr = nodeHash(algorithm, c, sr);
+                    while ((fn & 1) == 0 && fn != 0) {
+                        fn >>= 1;
+                        sn >>= 1;
+                    }
+                } else {
+                    sr = nodeHash(algorithm, sr, c);
+                }
+                fn >>= 1;
+                sn >>= 1;
+            }
+            return sn == 0 && fr.equals(firstRoot) && sr.equals(secondRoot);
+        }
+
+        /**
+         * Answer true if the receiver proves the inclusion of the leaf in the tree with the root
+         */
+        public boolean verifyInclusion(Digest leaf, Digest root) {
+            if (index < 0 || index >= size) {
+                return false;
+            }
+            int fn = index;
+            int sn = size - 1;
+            var r = leafHash(algorithm, leaf);
+            for (var p : path) {
+                if (sn == 0) {
+                    return false;
+                }
+                if ((fn & 1) == 1 || fn == sn) {
+                    r = nodeHash(algorithm, p, r);
+                    while ((fn & 1) == 0 && fn != 0) {
+                        fn >>= 1;
+                        sn >>= 1;
+                    }
+                } else {
+                    r = nodeHash(algorithm, r, p);
+                }
+                fn >>= 1;
+                sn >>= 1;
+            }
+            return sn == 0 && r.equals(root);
+        }
+    }
+}
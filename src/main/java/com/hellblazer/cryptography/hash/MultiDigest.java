@@ -0,0 +1,202 @@
+/*
+ * Copyright (C) 2023 Hal Hildebrand. All rights reserved.
+ */
+package com.hellblazer.cryptography.hash;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+
+/**
+ * Digests of several DigestAlgorithms computed in a single pass over the input. Each buffer of input is read once and
+ * fanned out to a pooled Hasher per algorithm, so publishing, for example, both a BLAKE3 and a SHA2 digest of a large
+ * artifact costs one read rather than two.
+ * <p>
+ * If parallel, the Hashers consume each buffer concurrently across the common fork join pool, and input streams are
+ * read into one buffer while the Hashers consume the other, overlapping I/O with hashing. A MultiDigest may be reused
+ * for any number of computations, as {@link #finish()} resets the receiver, and should be closed when no longer
+ * needed, returning its Hashers to their pools. Not thread safe.
+ *
+ * @author hal.hildebrand
+ */
+public class MultiDigest implements AutoCloseable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAP_WINDOW  = 64 * 1024 * 1024;
+
+    private final EnumMap<DigestAlgorithm, Hasher> hashers = new EnumMap<>(DigestAlgorithm.class);
+    private final boolean                          parallel;
+    private       byte[]                           buffer;
+    private       byte[]                           next;
+
+    public MultiDigest(boolean parallel, DigestAlgorithm... algorithms) {
+        if (algorithms.length == 0) {
+            throw new IllegalArgumentException("At least one algorithm is required");
+        }
+        this.parallel = parallel;
+        for (var algorithm : algorithms) {
+            hashers.computeIfAbsent(algorithm, DigestAlgorithm::newHasher);
+        }
+    }
+
+    public MultiDigest(DigestAlgorithm... algorithms) {
+        this(false, algorithms);
+    }
+
+    /**
+     * Answer the digests of the remaining bytes of the stream for each of the algorithms, reading the stream once. The
+     * stream is not closed
+     */
+    public static EnumMap<DigestAlgorithm, Digest> digest(InputStream is, DigestAlgorithm... algorithms) {
+        try (var multi = new MultiDigest(algorithms)) {
+            return multi.update(is).finish();
+        }
+    }
+
+    /**
+     * Answer the digests of the file for each of the algorithms, reading the file once
+     */
+    public static EnumMap<DigestAlgorithm, Digest> digest(Path path, DigestAlgorithm... algorithms) {
+        try (var multi = new MultiDigest(algorithms)) {
+            return multi.update(path).finish();
+        }
+    }
+
+    /**
+     * Reset the receiver and return its Hashers to their pools. The receiver must not be used after closing
+     */
+    @Override
+    public void close() {
+        hashers.values().forEach(Hasher::close);
+    }
+
+    /**
+     * Answer the digests of the bytes accumulated since the last reset for each algorithm, resetting the receiver
+     */
+    public EnumMap<DigestAlgorithm, Digest> finish() {
+        var digests = new EnumMap<DigestAlgorithm, Digest>(DigestAlgorithm.class);
+        hashers.forEach((algorithm, hasher) -> digests.put(algorithm, hasher.finish()));
+        return digests;
+    }
+
+    public Set<DigestAlgorithm> getAlgorithms() {
+        return hashers.keySet();
+    }
+
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    /**
+     * Discard the accumulated state of the receiver
+     */
+    public MultiDigest reset() {
+        hashers.values().forEach(Hasher::reset);
+        return this;
+    }
+
+    public MultiDigest update(byte[] bytes) {
+        return update(bytes, 0, bytes.length);
+    }
+
+    public MultiDigest update(byte[] bytes, int offset, int length) {
+        fanOut(h -> h.update(bytes, offset, length));
+        return this;
+    }
+
+    /**
+     * Update the receiver with the remaining bytes of the buffer. The buffer's position is advanced to its limit
+     */
+    public MultiDigest update(ByteBuffer buffer) {
+        fanOut(h -> h.update(buffer.duplicate()));
+        buffer.position(buffer.limit());
+        return this;
+    }
+
+    /**
+     * Update the receiver with the remaining bytes of the stream, reading each byte once. The stream is not closed
+     */
+    public MultiDigest update(InputStream is) {
+        if (buffer == null) {
+            buffer = new byte[BUFFER_SIZE];
+        }
+        try {
+            if (!concurrent()) {
+                for (int read = is.readNBytes(buffer, 0, BUFFER_SIZE); read > 0;
+                     read = is.readNBytes(buffer, 0, BUFFER_SIZE)) {
+                    update(buffer, 0, read);
+                }
+                return this;
+            }
+            if (next == null) {
+                next = new byte[BUFFER_SIZE];
+            }
+            for (int read = is.readNBytes(buffer, 0, BUFFER_SIZE); read > 0; ) {
+                var current = buffer;
+                var length = read;
+                var pending = fork(h -> h.update(current, 0, length));
+                try {
+                    read = is.readNBytes(next, 0, BUFFER_SIZE);
+                } finally {
+                    pending.forEach(ForkJoinTask::join);
+                }
+                buffer = next;
+                next = current;
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Error reading from buffers, cannot generate hash", e);
+        }
+        return this;
+    }
+
+    /**
+     * Update the receiver with the contents of the file, which is mapped and read once
+     */
+    public MultiDigest update(Path path) {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            var size = channel.size();
+            for (long position = 0; position < size; position += MAP_WINDOW) {
+                update(channel.map(MapMode.READ_ONLY, position, Math.min(MAP_WINDOW, size - position)));
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Error reading from file: " + path + ", cannot generate hash", e);
+        }
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "MultiDigest" + hashers.keySet();
+    }
+
+    private boolean concurrent() {
+        return parallel && hashers.size() > 1;
+    }
+
+    private void fanOut(Consumer<Hasher> update) {
+        if (!concurrent()) {
+            hashers.values().forEach(update);
+            return;
+        }
+        fork(update).forEach(ForkJoinTask::join);
+    }
+
+    private List<ForkJoinTask<?>> fork(Consumer<Hasher> update) {
+        var pool = ForkJoinPool.commonPool();
+        var tasks = new ArrayList<ForkJoinTask<?>>(hashers.size());
+        for (var hasher : hashers.values()) {
+            tasks.add(pool.submit(() -> update.accept(hasher)));
+        }
+        return tasks;
+    }
+}
@@ -0,0 +1,543 @@
+/*
+ * Copyright (C) 2023 Hal Hildebrand. All rights reserved.
+ */
+package com.hellblazer.cryptography.hash;
+
+import com.google.protobuf.ByteString;
+import com.hellblazer.cryptography.proto.SparseMerkleProof_;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A sparse Merkle tree authenticating a map from 256 bit digest keys to digest values. The tree is the complete binary
+ * tree of depth 256 over the key space, where the leaf of each key is the hash of the key and its value, or the default
+ * empty leaf if the key is absent. The hash of every empty subtree is the default of its depth, computed once per
+ * algorithm and cached, so only the paths of present keys are ever hashed. Every key has a proof of its value or of its
+ * absence. Keys are identified by their 256 bits alone, whatever their algorithm, so keys of different algorithms with
+ * the same bits are the same key.
+ * <p>
+ * The present keys are held in a crit bit trie, each node caching the hash of the subtree at its depth. The path from
+ * a node up to its parent's depth passes only empty siblings, so is hashed against the cached defaults. Batches of
+ * updates are sorted and merged into the trie in a single pass, replacing only the nodes on the paths of the updated
+ * keys, and the hashes of the replaced nodes are then recomputed bottom up, each exactly once however many updated
+ * keys share it. Large subtrees are rehashed in parallel across the common fork join pool.
+ * <p>
+ * Proofs are compact; the siblings that are defaults are elided and marked by a bitmap of the 256 levels. Not thread
+ * safe.
+ *
+ * @author hal.hildebrand
+ */
+public class SparseMerkleTree {
+    public static final int DEPTH = 256;
+
+    private static final Map<DigestAlgorithm, Digest[]> DEFAULTS = new ConcurrentHashMap<>();
+    private static final byte                           LEAF     = 0;
+    private static final byte                           NODE     = 1;
+
+    private final DigestAlgorithm algorithm;
+    private final Digest[]        defaults;
+    private       Node            root;
+    private       Digest          rootHash;
+
+    public SparseMerkleTree(DigestAlgorithm algorithm) {
+        if (algorithm.longLength() == 0) {
+            throw new IllegalArgumentException("Cannot hash with: " + algorithm);
+        }
+        this.algorithm = algorithm;
+        this.defaults = defaults(algorithm);
+        this.rootHash = defaults[0];
+    }
+
+    private static int bit(long[] hash, int bit) {
+        return (int) (hash[bit >>> 6] >>> (63 - (bit & 63))) & 1;
+    }
+
+    private static Digest check(Digest key) {
+        if (key.getLongs().length != DEPTH / 64) {
+            throw new IllegalArgumentException("Keys must be 256 bit digests: " + key);
+        }
+        return key;
+    }
+
+    private static Digest combine(Hasher hasher, Digest left, Digest right) {
+        hasher.update(NODE);
+        update(hasher, left);
+        return update(hasher, right).finish();
+    }
+
+    /**
+     * Answer the index of the first bit at which the hashes differ, or DEPTH if equal
+     */
+    private static int critical(long[] a, long[] b) {
+        var i = Arrays.mismatch(a, b);
+        return i < 0 ? DEPTH : (i << 6) + Long.numberOfLeadingZeros(a[i] ^ b[i]);
+    }
+
+    /**
+     * Answer the hashes of the empty subtrees of each depth, the empty leaf at DEPTH being the origin of the algorithm
+     */
+    private static Digest[] defaults(DigestAlgorithm algorithm) {
+        return DEFAULTS.computeIfAbsent(algorithm, a -> {
+            var defaults = new Digest[DEPTH + 1];
+            defaults[DEPTH] = a.getOrigin();
+            try (var hasher = a.newHasher()) {
+                for (int d = DEPTH - 1; d >= 0; d--) {
+                    defaults[d] = combine(hasher, defaults[d + 1], defaults[d + 1]);
+                }
+            }
+            return defaults;
+        });
+    }
+
+    private static Node join(int bit, Node left, Node right) {
+        return left == null ? right : right == null ? left : new Branch(bit, left, right);
+    }
+
+    private static Digest leaf(Hasher hasher, Digest key, Digest value) {
+        hasher.update(LEAF);
+        update(hasher, key);
+        hasher.update(value.getAlgorithm().digestCode());
+        return update(hasher, value).finish();
+    }
+
+    /**
+     * Answer the index of the first of the sorted keys in [from, to) with the bit set, the keys sharing all prior bits
+     */
+    private static int split(Digest[] keys, int from, int to, int bit) {
+        int low = from, high = to;
+        while (low < high) {
+            var mid = (low + high) >>> 1;
+            if (bit(keys[mid].getLongs(), bit) == 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static Hasher update(Hasher hasher, Digest digest) {
+        for (var word : digest.getLongs()) {
+            hasher.update(word);
+        }
+        return hasher;
+    }
+
+    public boolean contains(Digest key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Answer the value of the key, or null if absent
+     */
+    public Digest get(Digest key) {
+        var hash = check(key).getLongs();
+        var node = root;
+        while (node instanceof Branch branch) {
+            node = bit(hash, branch.bit) == 0 ? branch.left : branch.right;
+        }
+        return node instanceof Leaf leaf && Arrays.equals(leaf.key(), hash) ? leaf.value : null;
+    }
+
+    public DigestAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    /**
+     * Answer the proof of the value of the key, or of its absence
+     */
+    public Proof prove(Digest key) {
+        var hash = check(key).getLongs();
+        var bitmap = new long[DEPTH / 64];
+        var siblings = new ArrayList<Digest>();
+        Digest value = null;
+        try (var hasher = algorithm.newHasher()) {
+            var node = root;
+            while (node != null) {
+                var depth = node.depth();
+                var critical = critical(hash, node.key());
+                if (critical < depth) {
+                    // The key's path leaves the node's subtree, and continues through empty subtrees alone
+                    bitmap[critical >>> 6] |= 1L << (63 - (critical & 63));
+                    siblings.add(lift(node, critical + 1, hasher));
+                    break;
+                }
+                if (node instanceof Leaf leaf) {
+                    value = leaf.value;
+                    break;
+                }
+                var branch = (Branch) node;
+                var left = bit(hash, branch.bit) == 0;
+                bitmap[branch.bit >>> 6] |= 1L << (63 - (branch.bit & 63));
+                siblings.add(lift(left ? branch.right : branch.left, branch.bit + 1, hasher));
+                node = left ? branch.left : branch.right;
+            }
+        }
+        return new Proof(algorithm, key, value, bitmap, siblings);
+    }
+
+    /**
+     * Set the value of the key
+     */
+    public void put(Digest key, Digest value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Value must not be null");
+        }
+        apply(new Digest[] { check(key) }, new Digest[] { value });
+    }
+
+    /**
+     * Remove the key
+     */
+    public void remove(Digest key) {
+        apply(new Digest[] { check(key) }, new Digest[1]);
+    }
+
+    /**
+     * Answer the root hash of the tree
+     */
+    public Digest root() {
+        return rootHash;
+    }
+
+    public int size() {
+        return root == null ? 0 : root.size();
+    }
+
+    @Override
+    public String toString() {
+        return "SparseMerkleTree[" + algorithm + ":" + size() + " " + rootHash + "]";
+    }
+
+    /**
+     * Apply the batch of updates, each key being set to its value, or removed if its value is null. The root hash is
+     * recomputed once for the batch. No two keys may have the same bits
+     */
+    public void update(Map<Digest, Digest> updates) {
+        var keys = updates.keySet().toArray(new Digest[0]);
+        for (var key : keys) {
+            check(key);
+        }
+        DigestSort.sort(keys);
+        for (int i = 1; i < keys.length; i++) {
+            if (Arrays.equals(keys[i - 1].getLongs(), keys[i].getLongs())) {
+                throw new IllegalArgumentException("Duplicate key: " + keys[i]);
+            }
+        }
+        var values = new Digest[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            values[i] = updates.get(keys[i]);
+        }
+        apply(keys, values);
+    }
+
+    /**
+     * Merge the sorted updates into the trie, and rehash the replaced nodes
+     */
+    private void apply(Digest[] keys, Digest[] values) {
+        var updated = apply(root, keys, values, 0, keys.length);
+        if (updated == root) {
+            return;
+        }
+        root = updated;
+        if (root == null) {
+            rootHash = defaults[0];
+            return;
+        }
+        if (root.size() >= DigestAlgorithm.PARALLEL_THRESHOLD) {
+            ForkJoinPool.commonPool().invoke(new Rehash(root));
+        }
+        try (var hasher = algorithm.newHasher()) {
+            rehash(root, hasher);
+            rootHash = lift(root, 0, hasher);
+        }
+    }
+
+    /**
+     * Answer the node with the sorted updates in [from, to) applied, or the node itself if unchanged. Every update
+     * shares the prefix of the node's parent
+     */
+    private Node apply(Node node, Digest[] keys, Digest[] values, int from, int to) {
+        if (from == to) {
+            return node;
+        }
+        if (node == null) {
+            return build(keys, values, from, to);
+        }
+        var key = node.key();
+        var critical = Math.min(critical(keys[from].getLongs(), key), critical(keys[to - 1].getLongs(), key));
+        if (critical >= node.depth()) {
+            if (node instanceof Leaf leaf) {
+                var value = values[from];
+                return value == null ? null : value.equals(leaf.value) ? leaf : new Leaf(leaf.key, value);
+            }
+            var branch = (Branch) node;
+            var split = split(keys, from, to, branch.bit);
+            var left = apply(branch.left, keys, values, from, split);
+            var right = apply(branch.right, keys, values, split, to);
+            return left == branch.left && right == branch.right ? branch : join(branch.bit, left, right);
+        }
+        // Some updates diverge from the node's prefix at the critical bit
+        var split = split(keys, from, to, critical);
+        return bit(key, critical) == 0 ? join(critical, apply(node, keys, values, from, split),
+                                              build(keys, values, split, to))
+                                       : join(critical, build(keys, values, from, split),
+                                              apply(node, keys, values, split, to));
+    }
+
+    /**
+     * Answer the trie of the sorted updates in [from, to), omitting removals
+     */
+    private Node build(Digest[] keys, Digest[] values, int from, int to) {
+        if (to - from <= 1) {
+            return from == to || values[from] == null ? null : new Leaf(keys[from], values[from]);
+        }
+        var critical = critical(keys[from].getLongs(), keys[to - 1].getLongs());
+        var split = split(keys, from, to, critical);
+        return join(critical, build(keys, values, from, split), build(keys, values, split, to));
+    }
+
+    /**
+     * Answer the hash of the node's subtree as seen from the depth above the node, the path between passing only
+     * empty siblings
+     */
+    private Digest lift(Node node, int depth, Hasher hasher) {
+        var key = node.key();
+        var hash = node.hash;
+        for (int d = node.depth() - 1; d >= depth; d--) {
+            hash = bit(key, d) == 0 ? combine(hasher, hash, defaults[d + 1]) : combine(hasher, defaults[d + 1], hash);
+        }
+        return hash;
+    }
+
+    private void rehash(Node node, Hasher hasher) {
+        if (node.hash != null) {
+            return;
+        }
+        if (node instanceof Leaf leaf) {
+            leaf.hash = leaf(hasher, leaf.key, leaf.value);
+            return;
+        }
+        var branch = (Branch) node;
+        rehash(branch.left, hasher);
+        rehash(branch.right, hasher);
+        branch.hash = combine(hasher, lift(branch.left, branch.bit + 1, hasher),
+                              lift(branch.right, branch.bit + 1, hasher));
+    }
+
+    /**
+     * A proof of the value of a key, or of its absence if the value is null. The siblings of the key's path that are
+     * not the default hashes of their depths are listed from the root down, and marked in the bitmap of levels
+     */
+    public static class Proof {
+        private final DigestAlgorithm algorithm;
+        private final long[]          bitmap;
+        private final Digest          key;
+        private final List<Digest>    siblings;
+        private final Digest          value;
+
+        public Proof(DigestAlgorithm algorithm, Digest key, Digest value, long[] bitmap, List<Digest> siblings) {
+            if (bitmap.length != DEPTH / 64) {
+                throw new IllegalArgumentException("Invalid bitmap length: " + bitmap.length);
+            }
+            this.algorithm = algorithm;
+            this.key = check(key);
+            this.value = value;
+            this.bitmap = bitmap.clone();
+            this.siblings = List.copyOf(siblings);
+        }
+
+        public Proof(SparseMerkleProof_ proof) {
+            algorithm = DigestAlgorithm.fromDigestCode(proof.getType());
+            key = check(new Digest(proof.getKey()));
+            value = proof.hasValue() ? new Digest(proof.getValue()) : null;
+            if (proof.getBitmap().size() != DEPTH / 8) {
+                throw new IllegalArgumentException("Invalid bitmap length: " + proof.getBitmap().size());
+            }
+            bitmap = new long[DEPTH / 64];
+            proof.getBitmap().asReadOnlyByteBuffer().asLongBuffer().get(bitmap);
+            siblings = proof.getSiblingsList().stream().map(Digest::new).toList();
+        }
+
+        public static Proof from(SparseMerkleProof_ proof) {
+            return new Proof(proof);
+        }
+
+        public DigestAlgorithm getAlgorithm() {
+            return algorithm;
+        }
+
+        public Digest getKey() {
+            return key;
+        }
+
+        public List<Digest> getSiblings() {
+            return siblings;
+        }
+
+        /**
+         * Answer the value of the key, or null if the receiver proves the key's absence
+         */
+        public Digest getValue() {
+            return value;
+        }
+
+        /**
+         * Answer true if the receiver proves the value of the key, rather than its absence
+         */
+        public boolean isMember() {
+            return value != null;
+        }
+
+        public SparseMerkleProof_ toSparseMerkleProofe() {
+            var bytes = ByteBuffer.allocate(DEPTH / 8);
+            bytes.asLongBuffer().put(bitmap);
+            var builder = SparseMerkleProof_.newBuilder()
+                                            .setType(algorithm.digestCode())
+                                            .setKey(key.toDigeste())
+                                            .setBitmap(ByteString.copyFrom(bytes.array()));
+            if (value != null) {
+                builder.setValue(value.toDigeste());
+            }
+            for (var sibling : siblings) {
+                builder.addSiblings(sibling.toDigeste());
+            }
+            return builder.build();
+        }
+
+        @Override
+        public String toString() {
+            return "Proof[" + key + (value == null ? " absent" : " = " + value) + " " + siblings.size() + "]";
+        }
+
+        /**
+         * Answer true if the receiver proves the value, or absence, of the key in the tree with the root
+         */
+        public boolean verify(Digest root) {
+            var count = 0;
+            for (var word : bitmap) {
+                count += Long.bitCount(word);
+            }
+            if (count != siblings.size() || root.getAlgorithm() != algorithm) {
+                return false;
+            }
+            var defaults = defaults(algorithm);
+            var hash = key.getLongs();
+            var next = siblings.size();
+            try (var hasher = algorithm.newHasher()) {
+                var current = value == null ? defaults[DEPTH] : leaf(hasher, key, value);
+                for (int d = DEPTH - 1; d >= 0; d--) {
+                    var sibling = (bitmap[d >>> 6] >>> (63 - (d & 63)) & 1) != 0 ? siblings.get(--next)
+                                                                                : defaults[d + 1];
+                    current = bit(hash, d) == 0 ? combine(hasher, current, sibling) : combine(hasher, sibling, current);
+                }
+                return current.equals(root);
+            }
+        }
+    }
+
+    private static abstract class Node {
+        /**
+         * The hash of the subtree at the node's depth, or null until computed
+         */
+        Digest hash;
+
+        abstract int depth();
+
+        /**
+         * Answer the longs of a key of the subtree, all of which share the node's prefix
+         */
+        abstract long[] key();
+
+        abstract int size();
+    }
+
+    private static class Branch extends Node {
+        private final int  bit;
+        private final Node left;
+        private final Node right;
+        private final int  size;
+
+        private Branch(int bit, Node left, Node right) {
+            this.bit = bit;
+            this.left = left;
+            this.right = right;
+            this.size = left.size() + right.size();
+        }
+
+        @Override
+        int depth() {
+            return bit;
+        }
+
+        @Override
+        long[] key() {
+            return left.key();
+        }
+
+        @Override
+        int size() {
+            return size;
+        }
+    }
+
+    private static class Leaf extends Node {
+        private final Digest key;
+        private final Digest value;
+
+        private Leaf(Digest key, Digest value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        int depth() {
+            return DEPTH;
+        }
+
+        @Override
+        long[] key() {
+            return key.getLongs();
+        }
+
+        @Override
+        int size() {
+            return 1;
+        }
+    }
+
+    /**
+     * Rehash the replaced nodes of a large subtree, the two subtrees of each large replaced branch in parallel
+     */
+    private class Rehash extends RecursiveAction {
+        private final Node node;
+
+        private Rehash(Node node) {
+            this.node = node;
+        }
+
+        @Override
+        protected void compute() {
+            if (node.hash != null) {
+                return;
+            }
+            if (node instanceof Branch branch && branch.size >= DigestAlgorithm.PARALLEL_THRESHOLD) {
+                invokeAll(new Rehash(branch.left), new Rehash(branch.right));
+            }
+            try (var hasher = algorithm.newHasher()) {
+                rehash(node, hasher);
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2023 Hal Hildebrand. All rights reserved.
+ */
+package com.hellblazer.cryptography;
+
+import com.hellblazer.cryptography.hash.DigestAlgorithm;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.WritableByteChannel;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author hal.hildebrand
+ */
+public class DigestingStreamsTest {
+
+    @Test
+    public void channels() throws Exception {
+        var entropy = new Random(0x1638);
+        var bytes = new byte[100_000];
+        entropy.nextBytes(bytes);
+        var algorithm = DigestAlgorithm.BLAKE3_256;
+        var expected = algorithm.digest(bytes);
+
+        var sink = new ByteArrayOutputStream();
+        var out = Channels.newChannel(sink);
+        // accept at most 1000 bytes per write, to exercise partial writes
+        var writer = new DigestingWritableByteChannel(new WritableByteChannel() {
+            @Override
+            public void close() throws IOException {
+                out.close();
+            }
+
+            @Override
+            public boolean isOpen() {
+                return out.isOpen();
+            }
+
+            @Override
+            public int write(ByteBuffer src) throws IOException {
+                var limit = src.limit();
+                src.limit(Math.min(limit, src.position() + 1000));
+                try {
+                    return out.write(src);
+                } finally {
+                    src.limit(limit);
+                }
+            }
+        }, algorithm);
+        var direct = ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+        while (direct.hasRemaining()) {
+            writer.write(direct);
+        }
+        assertThrows(IllegalStateException.class, writer::getDigest);
+        writer.close();
+        writer.close();
+        assertFalse(writer.isOpen());
+        assertThrows(ClosedChannelException.class, () -> writer.write(ByteBuffer.allocate(1)));
+        assertEquals(expected, writer.getDigest());
+        assertArrayEquals(bytes, sink.toByteArray());
+
+        var reader = new DigestingReadableByteChannel(Channels.newChannel(new ByteArrayInputStream(bytes)), algorithm);
+        var buffer = ByteBuffer.allocate(777);
+        var total = 0;
+        for (int read = reader.read(buffer); read >= 0; read = reader.read(buffer)) {
+            total += read;
+            buffer.clear();
+        }
+        reader.close();
+        reader.close();
+        assertThrows(ClosedChannelException.class, () -> reader.read(buffer));
+        assertEquals(bytes.length, total);
+        assertEquals(expected, reader.getDigest());
+    }
+
+    @Test
+    public void streams() throws Exception {
+        var entropy = new Random(0x1638);
+        var bytes = new byte[100_000];
+        entropy.nextBytes(bytes);
+        for (var algorithm : DigestAlgorithm.values()) {
+            var expected = algorithm.digest(bytes);
+
+            var sink = new ByteArrayOutputStream();
+            try (var out = new DigestingOutputStream(sink, algorithm)) {
+                out.write(bytes[0]);
+                out.write(bytes, 1, 999);
+                out.write(bytes, 1000, bytes.length - 1000);
+                assertThrows(IllegalStateException.class, out::getDigest);
+                out.close();
+                assertThrows(IOException.class, () -> out.write(bytes));
+                assertThrows(IOException.class, () -> out.write(bytes[0]));
+                assertEquals(expected, out.getDigest(), algorithm.name());
+            }
+            assertArrayEquals(bytes, sink.toByteArray());
+
+            var in = new DigestingInputStream(new ByteArrayInputStream(bytes), algorithm);
+            assertEquals(bytes[0] & 0xFF, in.read());
+            assertEquals(1000, in.skip(1000));
+            var rest = in.readAllBytes();
+            assertEquals(bytes.length - 1001, rest.length);
+            in.close();
+            in.close();
+            assertThrows(IOException.class, in::read);
+            assertThrows(IOException.class, () -> in.read(bytes));
+            assertEquals(expected, in.getDigest(), algorithm.name());
+        }
+    }
+}
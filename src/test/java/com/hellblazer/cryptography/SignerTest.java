@@ -0,0 +1,43 @@
+/*
+ * Copyright (C) 2023 Hal Hildebrand. All rights reserved.
+ */
+package com.hellblazer.cryptography;
+
+import com.hellblazer.cryptography.proto.Biff;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author hal.hildebrand
+ */
+public class SignerTest {
+
+    @Test
+    public void messages() {
+        var entropy = new Random(0x1638);
+        for (var algorithm : new SignatureAlgorithm[] { SignatureAlgorithm.ED_25519, SignatureAlgorithm.ED_448 }) {
+            var keyPair = algorithm.generateKeyPair();
+            var signer = new Signer.SignerImpl(keyPair.getPrivate());
+            var verifier = new Verifier.DefaultVerifier(keyPair.getPublic());
+            for (int bits : new int[] { 0, 10, 10_000 }) {
+                var builder = Biff.newBuilder().setM(bits).setK(3).setSeed(entropy.nextLong());
+                for (int i = 0; i < bits; i++) {
+                    builder.addBits(entropy.nextLong());
+                }
+                var message = builder.build();
+                var signature = signer.sign(message);
+                assertEquals(algorithm, signature.getAlgorithm());
+                assertTrue(verifier.verify(signature, message.toByteString()), algorithm + ":" + bits);
+                assertFalse(verifier.verify(signature, message.toBuilder().setK(4).build().toByteString()));
+            }
+        }
+        var mock = new Signer.MockSigner(SignatureAlgorithm.DEFAULT);
+        assertEquals(SignatureAlgorithm.DEFAULT.signatureLength(),
+                     mock.sign(Biff.getDefaultInstance()).getSignature().length);
+    }
+}
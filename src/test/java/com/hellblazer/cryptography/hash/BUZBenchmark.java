@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2023 Hal Hildebrand. All rights reserved.
+ */
+package com.hellblazer.cryptography.hash;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+/**
+ * Throughput comparisons of per value and bulk buzhashing. Not part of the default test run; execute with
+ * <code>mvn test -Dtest=BUZBenchmark</code>
+ *
+ * @author hal.hildebrand
+ */
+public class BUZBenchmark {
+    private static final int COUNT   = 1 << 20;
+    private static final int ROUNDS  = 20;
+    private static final int WARM_UP = 5;
+
+    @Test
+    public void longs() {
+        var entropy = new Random(0x1638);
+        var in = new long[COUNT];
+        for (int i = 0; i < in.length; i++) {
+            in[i] = entropy.nextLong();
+        }
+        var out = new long[COUNT];
+        var buffered = time(() -> {
+            for (int i = 0; i < in.length; i++) {
+                out[i] = BUZ.buzhash(ByteBuffer.allocate(8).putLong(in[i]).flip());
+            }
+        });
+        var single = time(() -> {
+            for (int i = 0; i < in.length; i++) {
+                out[i] = BUZ.buzhash(in[i]);
+            }
+        });
+        var bulk = time(() -> BUZ.buzhash(in, out));
+        System.out.println(String.format("%-10s %14s %8s", "path", "Mhash/s", "gain"));
+        System.out.println(String.format("%-10s %14.1f %7.1fx", "buffer", buffered, 1.0));
+        System.out.println(String.format("%-10s %14.1f %7.1fx", "single", single, single / buffered));
+        System.out.println(String.format("%-10s %14.1f %7.1fx", "bulk", bulk, bulk / buffered));
+    }
+
+    @Test
+    public void ranges() {
+        var entropy = new Random(0x1638);
+        var bytes = new byte[16 * 1024 * 1024];
+        entropy.nextBytes(bytes);
+        var direct = ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+        var sink = new long[1];
+        var relative = time(() -> sink[0] += BUZ.buzhash(direct.duplicate())) * bytes.length / COUNT;
+        var absolute = time(() -> sink[0] += BUZ.buzhash(direct, 0, bytes.length)) * bytes.length / COUNT;
+        var array = time(() -> sink[0] += BUZ.buzhash(bytes, 0, bytes.length)) * bytes.length / COUNT;
+        System.out.println(String.format("%-10s %14s %8s", "path", "MB/s", "gain"));
+        System.out.println(String.format("%-10s %14.1f %7.1fx", "relative", relative, 1.0));
+        System.out.println(String.format("%-10s %14.1f %7.1fx", "absolute", absolute, absolute / relative));
+        System.out.println(String.format("%-10s %14.1f %7.1fx", "array", array, array / relative));
+    }
+
+    /**
+     * Answer the millions of operations per second of the action, each run of which performs COUNT operations
+     */
+    private double time(Runnable action) {
+        for (int i = 0; i < WARM_UP; i++) {
+            action.run();
+        }
+        var start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            action.run();
+        }
+        var elapsed = System.nanoTime() - start;
+        return ((double) ROUNDS * COUNT / 1_000_000) / (elapsed / 1_000_000_000.0);
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2023 Hal Hildebrand. All rights reserved.
+ */
+package com.hellblazer.cryptography.hash;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author hal.hildebrand
+ */
+public class BUZTest {
+
+    @Test
+    public void bulk() {
+        var entropy = new Random(0x1638);
+        var in = new long[1_000];
+        for (int i = 0; i < in.length; i++) {
+            in[i] = entropy.nextLong();
+        }
+        in[0] = 0;
+        in[1] = -1;
+        in[2] = Long.MIN_VALUE;
+        var out = new long[in.length];
+        BUZ.buzhash(in, out);
+        for (int i = 0; i < in.length; i++) {
+            assertEquals(BUZ.buzhash(ByteBuffer.allocate(8).putLong(in[i]).flip()), out[i]);
+            assertEquals(out[i], BUZ.buzhash(in[i]));
+            var value = (int) in[i];
+            assertEquals(BUZ.buzhash(ByteBuffer.allocate(4).putInt(value).flip()), BUZ.buzhash(value));
+        }
+        var copy = in.clone();
+        BUZ.buzhash(copy, copy);
+        assertArrayEquals(out, copy);
+        assertThrows(IllegalArgumentException.class, () -> BUZ.buzhash(in, new long[1]));
+        assertThrows(IndexOutOfBoundsException.class, () -> BUZ.buzhash(in, 990, out, 0, 20));
+    }
+
+    @Test
+    public void ranges() {
+        var entropy = new Random(0x1638);
+        var bytes = new byte[4096];
+        entropy.nextBytes(bytes);
+        var direct = ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+        assertEquals(BUZ.buzhash(ByteBuffer.wrap(bytes, 100, 1000)), BUZ.buzhash(bytes, 100, 1000));
+        assertEquals(BUZ.buzhash(ByteBuffer.wrap(bytes, 100, 1000)), BUZ.buzhash(direct, 100, 1100));
+        assertEquals(0, direct.position());
+
+        var window = 48;
+        var rolling = BUZ.buzhash(bytes, 0, window);
+        for (int i = window; i < bytes.length; i++) {
+            rolling = BUZ.roll(rolling, bytes[i - window], bytes[i], window);
+            assertEquals(BUZ.buzhash(bytes, i - window + 1, window), rolling);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2023 Hal Hildebrand. All rights reserved.
+ */
+package com.hellblazer.cryptography.hash;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author hal.hildebrand
+ */
+public class ChunkerTest {
+
+    @Test
+    public void chunks() throws Exception {
+        var entropy = new Random(0x1638);
+        var bytes = new byte[1024 * 1024 + 17];
+        entropy.nextBytes(bytes);
+        var chunker = new Chunker(512, 4096, 16 * 1024);
+        var algorithm = DigestAlgorithm.BLAKE3_256;
+
+        var chunks = chunker.chunk(ByteBuffer.wrap(bytes), algorithm);
+        long offset = 0;
+        for (int i = 0; i < chunks.size(); i++) {
+            var chunk = chunks.get(i);
+            assertEquals(offset, chunk.getOffset());
+            assertTrue(chunk.getLength() <= chunker.getMax());
+            if (i < chunks.size() - 1) {
+                assertTrue(chunk.getLength() >= chunker.getMin());
+            }
+            assertEquals(algorithm.digest(ByteBuffer.wrap(bytes, (int) offset, chunk.getLength())), chunk.getDigest());
+            offset += chunk.getLength();
+        }
+        assertEquals(bytes.length, offset);
+        var average = bytes.length / chunks.size();
+        assertTrue(average > 2048 && average < 8192, "average: " + average);
+
+        var direct = ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+        assertEquals(chunks, chunker.chunk(direct, algorithm));
+        assertEquals(chunks, chunker.chunk(new ByteArrayInputStream(bytes), algorithm));
+        var file = Files.createTempFile("chunks", ".bin");
+        try {
+            Files.write(file, bytes);
+            assertEquals(chunks, chunker.chunk(file, algorithm));
+            try (var channel = FileChannel.open(file)) {
+                assertEquals(chunks, chunker.chunk(channel, 0, bytes.length, algorithm, 64 * 1024));
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void maximum() {
+        var chunker = new Chunker(64, 1024, 2048);
+        var chunks = chunker.chunk(ByteBuffer.wrap(new byte[10_000]), DigestAlgorithm.BLAKE2B_256);
+        assertEquals(10_000, chunks.stream().mapToInt(Chunker.Chunk::getLength).sum());
+        chunks.forEach(c -> assertTrue(c.getLength() <= 2048));
+        chunks.subList(0, chunks.size() - 1).forEach(c -> assertTrue(c.getLength() >= 64));
+        assertEquals(List.of(), chunker.chunk(ByteBuffer.allocate(0), DigestAlgorithm.BLAKE2B_256));
+        assertThrows(IllegalArgumentException.class, () -> new Chunker(32, 1024, 2048));
+        assertThrows(IllegalArgumentException.class, () -> new Chunker(1024, 1024, 2048));
+        assertThrows(IllegalArgumentException.class, () -> new Chunker(64, 1024, 512));
+    }
+
+    @Test
+    public void resynchronization() {
+        var entropy = new Random(0x1638);
+        var original = new byte[512 * 1024];
+        entropy.nextBytes(original);
+        var edited = new byte[original.length + 100];
+        var at = original.length / 3;
+        System.arraycopy(original, 0, edited, 0, at);
+        for (int i = 0; i < 100; i++) {
+            edited[at + i] = (byte) i;
+        }
+        System.arraycopy(original, at, edited, at + 100, original.length - at);
+
+        var chunker = new Chunker(256, 2048, 8192);
+        var before = chunker.chunk(ByteBuffer.wrap(original), DigestAlgorithm.DEFAULT);
+        var after = chunker.chunk(ByteBuffer.wrap(edited), DigestAlgorithm.DEFAULT);
+        var digests = new HashSet<Digest>();
+        before.forEach(c -> digests.add(c.getDigest()));
+        var changed = after.stream().filter(c -> !digests.contains(c.getDigest())).count();
+        assertTrue(changed <= 3, "changed: " + changed + " of: " + after.size());
+    }
+}
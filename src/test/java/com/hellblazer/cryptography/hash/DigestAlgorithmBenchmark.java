@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2023 Hal Hildebrand. All rights reserved.
+ */
+package com.hellblazer.cryptography.hash;
+
+import com.hellblazer.cryptography.BbBackedInputStream;
+import org.bouncycastle.crypto.digests.Blake2bDigest;
+import org.bouncycastle.crypto.digests.Blake2sDigest;
+import org.bouncycastle.crypto.digests.Blake3Digest;
+import org.bouncycastle.crypto.macs.HMac;
+import org.bouncycastle.crypto.params.KeyParameter;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * Throughput comparisons of the hashing paths of DigestAlgorithm. Not part of the default test run; execute with
+ * <code>mvn test -Dtest=DigestAlgorithmBenchmark</code>
+ *
+ * @author hal.hildebrand
+ */
+public class DigestAlgorithmBenchmark {
+    private static final int[] SIZES   = { 64, 1024, 64 * 1024, 1024 * 1024 };
+    private static final long  TARGET  = 64L * 1024 * 1024;
+    private static final int   WARM_UP = 3;
+
+    private static double throughput(ByteBuffer buffer, Function<ByteBuffer, byte[]> hash) {
+        var size = buffer.remaining();
+        var iterations = Math.max(1, TARGET / Math.max(size, 1));
+        var sink = 0;
+        for (int w = 0; w < WARM_UP; w++) {
+            for (long i = 0; i < iterations / 4; i++) {
+                sink += hash.apply(buffer.duplicate())[0];
+            }
+        }
+        var start = System.nanoTime();
+        for (long i = 0; i < iterations; i++) {
+            sink += hash.apply(buffer.duplicate())[0];
+        }
+        var elapsed = System.nanoTime() - start;
+        if (sink == 42) {
+            System.out.print("");
+        }
+        return ((double) iterations * size / (1024 * 1024)) / (elapsed / 1_000_000_000.0);
+    }
+
+    @Test
+    public void byteBuffers() {
+        var entropy = new Random(0x1638);
+        System.out.println(String.format("%-12s %10s %8s %12s %12s %8s", "algorithm", "size", "buffer", "stream MB/s",
+                                         "direct MB/s", "gain"));
+        for (var algorithm : DigestAlgorithm.values()) {
+            if (algorithm == DigestAlgorithm.NONE) {
+                continue;
+            }
+            for (var size : SIZES) {
+                var bytes = new byte[size];
+                entropy.nextBytes(bytes);
+                var direct = ByteBuffer.allocateDirect(size).put(bytes).flip();
+                for (var buffer : new ByteBuffer[] { ByteBuffer.wrap(bytes), direct }) {
+                    var stream = throughput(buffer, b -> algorithm.hashOf(BbBackedInputStream.aggregate(b)));
+                    var zeroCopy = throughput(buffer, b -> algorithm.hashOf(b));
+                    System.out.println(
+                    String.format("%-12s %10d %8s %12.1f %12.1f %7.1fx", algorithm, size,
+                                  buffer.isDirect() ? "direct" : "heap", stream, zeroCopy, zeroCopy / stream));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void macs() {
+        var entropy = new Random(0x1638);
+        var key = new byte[32];
+        entropy.nextBytes(key);
+        System.out.println(String.format("%-12s %10s %12s %12s %8s", "algorithm", "size", "hmac MB/s", "keyed MB/s",
+                                         "gain"));
+        for (var algorithm : new DigestAlgorithm[] { DigestAlgorithm.BLAKE2B_256, DigestAlgorithm.BLAKE2S_256,
+                                                     DigestAlgorithm.BLAKE3_256 }) {
+            var hmac = new HMac(switch (algorithm) {
+                case BLAKE2B_256 -> new Blake2bDigest(256);
+                case BLAKE2S_256 -> new Blake2sDigest(256);
+                default -> new Blake3Digest(256);
+            });
+            hmac.init(new KeyParameter(key));
+            for (var size : new int[] { 64, 1024, 64 * 1024 }) {
+                var bytes = new byte[size];
+                entropy.nextBytes(bytes);
+                var buffer = ByteBuffer.wrap(bytes);
+                var h = throughput(buffer, b -> {
+                    var out = new byte[hmac.getMacSize()];
+                    hmac.update(b.array(), b.arrayOffset() + b.position(), b.remaining());
+                    hmac.doFinal(out, 0);
+                    return out;
+                });
+                var keyed = throughput(buffer, b -> algorithm.mac(key, b).getBytes());
+                System.out.println(
+                String.format("%-12s %10d %12.1f %12.1f %7.1fx", algorithm, size, h, keyed, keyed / h));
+            }
+        }
+    }
+
+    @Test
+    public void parallelBlake3() {
+        var entropy = new Random(0x1638);
+        System.out.println(String.format("%-12s %10s %12s %12s %8s", "algorithm", "size", "serial MB/s",
+                                         "parallel MB/s", "gain"));
+        for (var algorithm : new DigestAlgorithm[] { DigestAlgorithm.BLAKE3_256, DigestAlgorithm.BLAKE3_512 }) {
+            for (var size : new int[] { 1024 * 1024, 16 * 1024 * 1024, 64 * 1024 * 1024 }) {
+                var bytes = new byte[size];
+                entropy.nextBytes(bytes);
+                var buffer = ByteBuffer.wrap(bytes);
+                var serial = throughput(buffer, b -> algorithm.hashOf(b));
+                var parallel = throughput(buffer, b -> algorithm.parallelHashOf(b));
+                System.out.println(
+                String.format("%-12s %10d %12.1f %12.1f %7.1fx", algorithm, size, serial, parallel,
+                              parallel / serial));
+            }
+        }
+    }
+}
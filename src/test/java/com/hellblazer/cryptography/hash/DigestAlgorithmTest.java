@@ -0,0 +1,365 @@
+/*
+ * Copyright (C) 2023 Hal Hildebrand. All rights reserved.
+ */
+package com.hellblazer.cryptography.hash;
+
+import com.google.protobuf.ByteString;
+import com.hellblazer.cryptography.BbBackedInputStream;
+import com.hellblazer.cryptography.proto.Biff;
+import com.hellblazer.cryptography.proto.HexBloome;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author hal.hildebrand
+ */
+public class DigestAlgorithmTest {
+
+    @Test
+    public void directBuffers() {
+        var entropy = new Random(0x1638);
+        for (var algorithm : DigestAlgorithm.values()) {
+            for (int size : new int[] { 0, 1, 63, 64, 65, 1024, 8 * 1024 + 17, 100_000 }) {
+                var bytes = new byte[size];
+                entropy.nextBytes(bytes);
+                var expected = algorithm.hashOf(BbBackedInputStream.aggregate(bytes));
+                assertEquals(algorithm.digestLength(), expected.length, algorithm.name());
+                assertArrayEquals(expected, algorithm.hashOf(bytes, size), algorithm.name());
+
+                assertArrayEquals(expected, algorithm.hashOf(ByteBuffer.wrap(bytes)), algorithm.name());
+                assertArrayEquals(expected, algorithm.hashOf(ByteBuffer.wrap(bytes).asReadOnlyBuffer()),
+                                  algorithm.name());
+
+                var direct = ByteBuffer.allocateDirect(size);
+                direct.put(bytes).flip();
+                assertArrayEquals(expected, algorithm.hashOf(direct), algorithm.name());
+                assertEquals(direct.limit(), direct.position());
+
+                var half = size / 2;
+                var offset = new byte[size + 7];
+                System.arraycopy(bytes, 0, offset, 7, size);
+                var sliced = ByteBuffer.wrap(offset, 7, size).slice();
+                var head = sliced.duplicate().limit(half);
+                var tail = sliced.duplicate().position(half);
+                assertArrayEquals(expected, algorithm.hashOf(List.of(head, tail)), algorithm.name());
+
+                assertArrayEquals(expected, algorithm.hashOf(ByteString.copyFrom(bytes, 0, half),
+                                                             ByteString.copyFrom(bytes, half, size - half)),
+                                  algorithm.name());
+                assertArrayEquals(expected, algorithm.hashOf(ByteString.copyFrom(bytes, 0, half)
+                                                                       .concat(ByteString.copyFrom(bytes, half,
+                                                                                                   size - half))),
+                                  algorithm.name());
+                assertArrayEquals(expected, algorithm.hashOf(Arrays.copyOf(bytes, half),
+                                                             Arrays.copyOfRange(bytes, half, size)),
+                                  algorithm.name());
+            }
+        }
+    }
+
+    @Test
+    public void files() throws Exception {
+        var entropy = new Random(0x1638);
+        var file = Files.createTempFile("digest", ".bin");
+        try {
+            for (int size : new int[] { 0, 1, 1025, 100_000, 3 * 1024 * 1024 + 17 }) {
+                var bytes = new byte[size];
+                entropy.nextBytes(bytes);
+                Files.write(file, bytes);
+                var offset = size / 3;
+                var length = size / 2;
+                try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                    for (var algorithm : DigestAlgorithm.values()) {
+                        var expected = algorithm.digest(bytes, size);
+                        assertEquals(expected, algorithm.digest(file), algorithm + ":" + size);
+                        assertEquals(expected, algorithm.parallelDigest(file), algorithm + ":" + size);
+                        assertEquals(expected, algorithm.digest(channel, 0, size), algorithm + ":" + size);
+
+                        var region = algorithm.hashOf(Arrays.copyOfRange(bytes, offset, offset + length), length);
+                        assertArrayEquals(region, algorithm.hashOf(channel, offset, length), algorithm + ":" + size);
+                        assertArrayEquals(region, algorithm.parallelHashOf(channel, offset, length),
+                                          algorithm + ":" + size);
+                    }
+                    for (var algorithm : new DigestAlgorithm[] { DigestAlgorithm.BLAKE3_256,
+                                                                 DigestAlgorithm.BLAKE3_512 }) {
+                        var expected = algorithm.hashOf(bytes, size);
+                        for (var parallel : new boolean[] { false, true }) {
+                            assertArrayEquals(expected,
+                                              Blake3.hash(channel, 0, size, algorithm.digestLength(),
+                                                          4 * Blake3.CHUNK_LEN, parallel), algorithm + ":" + size);
+                        }
+                    }
+                }
+            }
+            try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                for (var algorithm : DigestAlgorithm.values()) {
+                    assertThrows(IllegalArgumentException.class, () -> algorithm.hashOf(channel, 0, -1),
+                                 algorithm.name());
+                    assertThrows(IllegalArgumentException.class, () -> algorithm.hashOf(channel, -1, 1),
+                                 algorithm.name());
+                    assertThrows(IllegalArgumentException.class, () -> algorithm.hashOf(channel, 1, Long.MAX_VALUE),
+                                 algorithm.name());
+                    assertThrows(IllegalArgumentException.class,
+                                 () -> algorithm.parallelHashOf(channel, Long.MAX_VALUE, 1), algorithm.name());
+                }
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void hashers() {
+        var entropy = new Random(0x1638);
+        for (var algorithm : DigestAlgorithm.values()) {
+            var bytes = new byte[1000];
+            entropy.nextBytes(bytes);
+            var value = entropy.nextLong();
+            var expected = algorithm.digest(ByteBuffer.allocate(bytes.length + 8).put(bytes).putLong(value).flip());
+
+            Hasher reused;
+            try (var hasher = algorithm.newHasher()) {
+                assertEquals(algorithm, hasher.getAlgorithm());
+                for (int i = 0; i < 3; i++) {
+                    assertEquals(expected, hasher.update(bytes, 0, 100)
+                                                 .update(ByteBuffer.wrap(bytes, 100, 400))
+                                                 .update(ByteString.copyFrom(bytes, 500, 500))
+                                                 .update(value)
+                                                 .finish(), algorithm.name());
+                }
+                hasher.update(new byte[5000]).reset();
+                assertEquals(expected, hasher.update(bytes).update(value).finish(), algorithm.name());
+                // Closed mid stream, spanning several BLAKE3 chunks
+                hasher.update(new byte[5000]);
+                reused = hasher;
+            }
+            try (var hasher = algorithm.newHasher()) {
+                assertSame(reused, hasher, algorithm.name());
+                assertEquals(expected, hasher.update(bytes).update(value).finish(), algorithm.name());
+            }
+
+            var closed = algorithm.newHasher();
+            closed.close();
+            closed.close();
+            assertThrows(IllegalStateException.class, () -> closed.update(bytes), algorithm.name());
+            assertThrows(IllegalStateException.class, closed::finish, algorithm.name());
+            assertThrows(IllegalStateException.class, closed::reset, algorithm.name());
+            var drawn = new ArrayList<Hasher>();
+            for (int i = 0; i < 64; i++) {
+                drawn.add(algorithm.newHasher());
+            }
+            assertEquals(1, drawn.stream().filter(h -> h == closed).count(), algorithm.name());
+            assertEquals(expected, closed.update(bytes).update(value).finish(), algorithm.name());
+            drawn.forEach(Hasher::close);
+        }
+    }
+
+    @Test
+    public void digestAll() {
+        var entropy = new Random(0x1638);
+        var messages = new ArrayList<byte[]>();
+        for (int i = 0; i < 5_000; i++) {
+            var bytes = new byte[entropy.nextInt(200)];
+            entropy.nextBytes(bytes);
+            messages.add(bytes);
+        }
+        for (var algorithm : DigestAlgorithm.values()) {
+            var expected = messages.stream().map(m -> algorithm.digest(m)).toArray(Digest[]::new);
+            assertArrayEquals(expected, algorithm.digestAll(messages), algorithm.name());
+            assertArrayEquals(expected, algorithm.digestAll(messages, Integer.MAX_VALUE), algorithm.name());
+            assertArrayEquals(expected, algorithm.digestAllBuffers(messages.stream().map(ByteBuffer::wrap).toList(), 1),
+                              algorithm.name());
+        }
+    }
+
+    @Test
+    public void macs() {
+        var key = new byte[64];
+        for (int i = 0; i < key.length; i++) {
+            key[i] = (byte) i;
+        }
+        // BLAKE2b keyed known answer and BLAKE3 keyed_hash test vectors, of the empty input
+        var blake2b = DigestAlgorithm.BLAKE2B_512.mac(key, ByteBuffer.allocate(0));
+        assertEquals("10ebb67700b1868efb4417987acf4690ae9d972fb7a590c2f02871799aaa4786"
+                     + "b5e996e8f0f4eb981fc214b005f42d2ff4233499391653df7aefcbc13fc51568",
+                     HexFormat.of().formatHex(blake2b.getBytes()));
+        var blake3 = DigestAlgorithm.BLAKE3_256.mac("whats the Elvish word for friend".getBytes(),
+                                                    ByteBuffer.allocate(0));
+        assertEquals("92b2b75604ed3c761f9d6f62392c8a9227ad0ea3f09573e783f1498a4ed60d26",
+                     HexFormat.of().formatHex(blake3.getBytes()));
+
+        var entropy = new Random(0x1638);
+        var message = new byte[1000];
+        entropy.nextBytes(message);
+        for (var algorithm : DigestAlgorithm.values()) {
+            if (algorithm == DigestAlgorithm.NONE) {
+                continue;
+            }
+            var macKey = Arrays.copyOf(key, 32);
+            var mac = algorithm.mac(macKey, ByteBuffer.wrap(message, 0, 500), ByteBuffer.wrap(message, 500, 500));
+            assertEquals(algorithm, mac.getAlgorithm());
+            assertTrue(algorithm.verify(macKey, mac, ByteBuffer.wrap(message)), algorithm.name());
+            assertFalse(algorithm.verify(Arrays.copyOfRange(key, 1, 33), mac, ByteBuffer.wrap(message)),
+                        algorithm.name());
+            assertFalse(algorithm.verify(macKey, mac, ByteBuffer.wrap(message, 1, 999)), algorithm.name());
+            assertFalse(algorithm.verify(macKey, algorithm.digest(message), ByteBuffer.wrap(message)),
+                        algorithm.name());
+
+            try (var hasher = algorithm.newMac(macKey)) {
+                for (int i = 0; i < 3; i++) {
+                    assertEquals(mac, hasher.update(message).finish(), algorithm.name());
+                }
+                hasher.update(key).reset();
+                assertEquals(mac, hasher.update(message).finish(), algorithm.name());
+                // Reset mid stream, spanning several BLAKE3 chunks
+                hasher.update(new byte[5000]).reset();
+                assertEquals(mac, hasher.update(message).finish(), algorithm.name());
+            }
+            try (var hasher = algorithm.newHasher()) {
+                assertEquals(algorithm.digest(message), hasher.update(message).finish(), algorithm.name());
+            }
+        }
+        assertThrows(IllegalArgumentException.class, () -> DigestAlgorithm.BLAKE3_256.newMac(new byte[16]));
+        assertThrows(IllegalArgumentException.class, () -> DigestAlgorithm.BLAKE2B_256.newMac(new byte[0]));
+    }
+
+    @Test
+    public void resumable() {
+        var entropy = new Random(0x1638);
+        var resumable = EnumSet.of(DigestAlgorithm.BLAKE2B_256, DigestAlgorithm.BLAKE2B_512,
+                                   DigestAlgorithm.BLAKE2S_256, DigestAlgorithm.BLAKE3_256,
+                                   DigestAlgorithm.BLAKE3_512, DigestAlgorithm.SHA2_256, DigestAlgorithm.SHA2_512);
+        for (var algorithm : DigestAlgorithm.values()) {
+            if (!resumable.contains(algorithm)) {
+                assertThrows(UnsupportedOperationException.class, algorithm::newResumableHasher);
+                continue;
+            }
+            for (int size : new int[] { 0, 1, 63, 64, 65, 128, 129, 1024, 1025, 3 * 1024 + 64, 100_000 }) {
+                var bytes = new byte[size];
+                entropy.nextBytes(bytes);
+                var expected = algorithm.digest(bytes);
+                for (int split : new int[] { 0, size / 3, size }) {
+                    var hasher = algorithm.newResumableHasher().update(bytes, 0, split);
+                    var state = hasher.getState();
+                    var resumed = algorithm.resume(state);
+                    assertEquals(expected, resumed.update(bytes, split, size - split).finish(),
+                                 algorithm + ":" + size + ":" + split);
+                    assertArrayEquals(state, algorithm.resume(state).getState());
+                    assertEquals(expected, hasher.update(bytes, split, size - split).finish());
+                }
+                var hasher = algorithm.newResumableHasher();
+                for (var b : Arrays.copyOf(bytes, Math.min(size, 300))) {
+                    hasher.update(b);
+                }
+                assertEquals(algorithm.digest(Arrays.copyOf(bytes, Math.min(size, 300))), hasher.finish());
+            }
+            var state = algorithm.newResumableHasher().update(new byte[100]).getState();
+            assertThrows(IllegalArgumentException.class, () -> algorithm.resume(Arrays.copyOf(state, 10)));
+            assertThrows(UnsupportedOperationException.class, () -> algorithm.newHasher().getState());
+        }
+        var state = DigestAlgorithm.BLAKE3_256.newResumableHasher().getState();
+        assertThrows(IllegalArgumentException.class, () -> DigestAlgorithm.BLAKE3_512.resume(state));
+        assertArrayEquals(DigestAlgorithm.BLAKE3_256.xof(3, ByteBuffer.wrap(new byte[5000])),
+                          DigestAlgorithm.BLAKE3_256.resume(state).update(new byte[5000]).finish(3));
+    }
+
+    @Test
+    public void xof() {
+        var entropy = new Random(0x1638);
+        for (var algorithm : DigestAlgorithm.values()) {
+            if (algorithm == DigestAlgorithm.NONE) {
+                continue;
+            }
+            for (int size : new int[] { 0, 1, 64, 1025, 10_000 }) {
+                var bytes = new byte[size];
+                entropy.nextBytes(bytes);
+                var digests = algorithm.xof(16, ByteBuffer.wrap(bytes));
+                assertEquals(16, digests.length);
+                assertEquals(16, Arrays.stream(digests).distinct().count(), algorithm.name());
+                for (var d : digests) {
+                    assertEquals(algorithm, d.getAlgorithm());
+                }
+                assertArrayEquals(Arrays.copyOf(digests, 3), algorithm.xof(3, ByteBuffer.wrap(bytes)),
+                                  algorithm.name());
+                try (var hasher = algorithm.newHasher()) {
+                    assertArrayEquals(digests, hasher.update(bytes).finish(16), algorithm.name());
+                    assertEquals(0, hasher.finish(0).length);
+                }
+                if (algorithm == DigestAlgorithm.BLAKE3_256 || algorithm == DigestAlgorithm.BLAKE3_512) {
+                    assertEquals(algorithm.digest(bytes), digests[0], algorithm.name());
+                    var stream = Blake3.hash(ByteBuffer.wrap(bytes), 16 * algorithm.digestLength(), false);
+                    assertArrayEquals(algorithm.split(stream), digests, algorithm.name());
+                }
+            }
+            var member = algorithm.random(entropy);
+            var id = algorithm.random(entropy);
+            var rings = member.prefixes(id, 8);
+            assertEquals(8, rings.length);
+            assertEquals(8, Arrays.stream(rings).distinct().count());
+            assertArrayEquals(Arrays.copyOf(rings, 3), member.prefixes(id, 3));
+            assertArrayEquals(member.expand(4), Arrays.copyOf(member.expand(5), 4));
+        }
+    }
+
+    @Test
+    public void messages() {
+        var entropy = new Random(0x1638);
+        for (var algorithm : DigestAlgorithm.values()) {
+            // messages either side of the hasher's scratch array
+            for (int bits : new int[] { 0, 1, 100, 2_000 }) {
+                var builder = Biff.newBuilder().setM(bits).setK(3).setSeed(entropy.nextLong());
+                for (int i = 0; i < bits; i++) {
+                    builder.addBits(entropy.nextLong());
+                }
+                var message = HexBloome.newBuilder()
+                                       .addCrowns(algorithm.random(entropy).toDigeste())
+                                       .setMembership(builder)
+                                       .setCardinality(bits)
+                                       .build();
+                assertEquals(algorithm.digest(message.toByteString()), algorithm.digest(message), algorithm.name());
+                try (var hasher = algorithm.newHasher()) {
+                    assertEquals(algorithm.digest(message.toByteArray(), message.getCrowns(0).toByteArray()),
+                                 hasher.update(message).update(message.getCrowns(0)).finish(), algorithm.name());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void parallelBlake3() {
+        var entropy = new Random(0x1638);
+        assertEquals("af1349b9f5f9a1a6a0404dea36dcc9499bcb25c9adc112b7cc9a93cae41f3262",
+                     HexFormat.of().formatHex(DigestAlgorithm.BLAKE3_256.parallelHashOf(ByteBuffer.allocate(0))));
+        for (var algorithm : new DigestAlgorithm[] { DigestAlgorithm.BLAKE3_256, DigestAlgorithm.BLAKE3_512 }) {
+            for (int size : new int[] { 0, 1, 63, 64, 65, 1023, 1024, 1025, 2048, 2049, 3 * 1024, 31 * 1024 + 1,
+                                        64 * 1024, 64 * 1024 + 1, 65 * 1024 + 512, 1024 * 1024 + 7,
+                                        5 * 1024 * 1024 + 333 }) {
+                var bytes = new byte[size];
+                entropy.nextBytes(bytes);
+                var expected = algorithm.hashOf(bytes, size);
+                assertArrayEquals(expected, algorithm.parallelHashOf(ByteBuffer.wrap(bytes)), algorithm + ":" + size);
+                assertArrayEquals(expected, Blake3.hash(ByteBuffer.wrap(bytes), algorithm.digestLength(), false),
+                                  algorithm + ":" + size);
+                var direct = ByteBuffer.allocateDirect(size).put(bytes).flip();
+                assertEquals(new Digest(algorithm, expected), algorithm.parallelDigest(direct), algorithm + ":" + size);
+            }
+        }
+    }
+}
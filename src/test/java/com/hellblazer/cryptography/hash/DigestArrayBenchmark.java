@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2023 Hal Hildebrand. All rights reserved.
+ */
+package com.hellblazer.cryptography.hash;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.LongSupplier;
+
+/**
+ * Throughput comparisons of the bulk operations of DigestArray against the equivalent per Digest loops. Not part of
+ * the default test run; execute with <code>mvn test -Dtest=DigestArrayBenchmark</code>
+ *
+ * @author hal.hildebrand
+ */
+public class DigestArrayBenchmark {
+    private static final int COUNT      = 1_000_000;
+    private static final int ITERATIONS = 20;
+    private static final int WARM_UP    = 5;
+
+    private static double millis(LongSupplier operation) {
+        long sink = 0;
+        for (int i = 0; i < WARM_UP; i++) {
+            sink += operation.getAsLong();
+        }
+        var start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += operation.getAsLong();
+        }
+        var elapsed = System.nanoTime() - start;
+        if (sink == 42) {
+            System.out.print("");
+        }
+        return elapsed / 1_000_000.0 / ITERATIONS;
+    }
+
+    private static void report(String operation, double scalar, double bulk) {
+        System.out.println(String.format("%-16s %12.2f %12.2f %7.1fx", operation, scalar, bulk, scalar / bulk));
+    }
+
+    @Test
+    public void bulk() {
+        var entropy = new Random(0x1638);
+        var algorithm = DigestAlgorithm.DEFAULT;
+        var digests = new Digest[COUNT];
+        for (int i = 0; i < COUNT; i++) {
+            digests[i] = algorithm.random(entropy);
+        }
+        var array = DigestArray.of(algorithm, digests);
+        var copies = Arrays.stream(digests).map(d -> new Digest(algorithm, d.getLongs().clone())).toArray(Digest[]::new);
+        var target = algorithm.random(entropy);
+        var bytes = Arrays.stream(digests).map(Digest::getBytes).toArray(byte[][]::new);
+        var same = Arrays.stream(bytes).map(byte[]::clone).toArray(byte[][]::new);
+
+        System.out.println(String.format("%-16s %12s %12s %8s", "operation", "scalar ms", "bulk ms", "gain"));
+        report("xor reduce", millis(() -> {
+            var reduced = new Digest(algorithm, new long[algorithm.longLength()]);
+            for (var d : digests) {
+                reduced = reduced.xor(d);
+            }
+            return reduced.getLongs()[0];
+        }), millis(() -> array.xorReduce().getLongs()[0]));
+        report("nearest", millis(() -> {
+            Digest nearest = null;
+            long index = -1;
+            for (int i = 0; i < digests.length; i++) {
+                var distance = digests[i].xor(target);
+                if (nearest == null || distance.compareTo(nearest) < 0) {
+                    nearest = distance;
+                    index = i;
+                }
+            }
+            return index;
+        }), millis(() -> array.nearest(target)));
+        report("equals", millis(() -> {
+            long equal = 0;
+            for (int i = 0; i < digests.length; i++) {
+                equal += digests[i].equals(copies[i]) ? 1 : 0;
+            }
+            return equal;
+        }), millis(() -> {
+            long equal = 0;
+            for (int i = 0; i < digests.length; i++) {
+                equal += array.equals(i, copies[i]) ? 1 : 0;
+            }
+            return equal;
+        }));
+        report("byte compare", millis(() -> {
+            long sum = 0;
+            for (int i = 0; i < bytes.length; i++) {
+                sum += DigestArrayTest.scalarCompare(bytes[i], same[i]);
+            }
+            return sum;
+        }), millis(() -> {
+            long sum = 0;
+            for (int i = 0; i < bytes.length; i++) {
+                sum += Digest.compare(bytes[i], same[i]);
+            }
+            return sum;
+        }));
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) 2023 Hal Hildebrand. All rights reserved.
+ */
+package com.hellblazer.cryptography.hash;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author hal.hildebrand
+ */
+public class DigestArrayTest {
+
+    @Test
+    public void bulkOperations() {
+        var entropy = new Random(0x1638);
+        for (var algorithm : new DigestAlgorithm[] { DigestAlgorithm.BLAKE2B_256, DigestAlgorithm.BLAKE3_512 }) {
+            var digests = new Digest[1000];
+            var others = new Digest[digests.length];
+            for (int i = 0; i < digests.length; i++) {
+                digests[i] = algorithm.random(entropy);
+                others[i] = algorithm.random(entropy);
+            }
+            var array = DigestArray.of(algorithm, digests);
+            for (int i = 0; i < digests.length; i++) {
+                assertEquals(digests[i].fold(), array.fold(i));
+                assertTrue(array.equals(i, digests[i]));
+                assertFalse(array.equals(i, others[i]));
+            }
+
+            var target = algorithm.random(entropy);
+            var nearest = 0;
+            for (int i = 1; i < digests.length; i++) {
+                if (digests[i].xor(target).compareTo(digests[nearest].xor(target)) < 0) {
+                    nearest = i;
+                }
+            }
+            assertEquals(nearest, array.nearest(target));
+            assertEquals(0, array.nearest(digests[0]));
+            assertEquals(-1, new DigestArray(algorithm).nearest(target));
+
+            array.xor(target);
+            for (int i = 0; i < digests.length; i++) {
+                assertEquals(digests[i].xor(target), array.get(i));
+            }
+            array.xor(DigestArray.of(algorithm, others));
+            for (int i = 0; i < digests.length; i++) {
+                assertEquals(digests[i].xor(target).xor(others[i]), array.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void byteComparison() {
+        var entropy = new Random(0x1638);
+        for (int i = 0; i < 10_000; i++) {
+            var a = new byte[entropy.nextInt(3) + 31];
+            var b = new byte[entropy.nextInt(3) + 31];
+            entropy.nextBytes(a);
+            System.arraycopy(a, 0, b, 0, Math.min(a.length, b.length));
+            if (entropy.nextBoolean()) {
+                b[entropy.nextInt(b.length)] = (byte) entropy.nextInt();
+            }
+            assertEquals(scalarCompare(a, b), Digest.compare(a, b));
+            assertEquals(scalarCompare(b, a), Digest.compare(b, a));
+        }
+        assertEquals(0, Digest.compare(null, null));
+        assertEquals(-1, Digest.compare(null, new byte[0]));
+        assertEquals(1, Digest.compare(new byte[0], null));
+    }
+
+    static int scalarCompare(byte[] o1, byte[] o2) {
+        if (o1.length != o2.length) {
+            return o1.length - o2.length;
+        }
+        for (int i = 0; i < o1.length; i++) {
+            final int diff = (o1[i] & 0xFF) - (o2[i] & 0xFF);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return 0;
+    }
+
+    @Test
+    public void packing() {
+        var entropy = new Random(0x1638);
+        for (var algorithm : new DigestAlgorithm[] { DigestAlgorithm.BLAKE2B_256, DigestAlgorithm.BLAKE3_512 }) {
+            var digests = new Digest[1000];
+            var expectedXor = new Digest(algorithm, new long[algorithm.longLength()]);
+            var array = new DigestArray(algorithm, 1);
+            for (int i = 0; i < digests.length; i++) {
+                digests[i] = algorithm.random(entropy);
+                expectedXor = expectedXor.xor(digests[i]);
+                assertEquals(i, array.add(digests[i]));
+            }
+            assertEquals(digests.length, array.size());
+            assertArrayEquals(digests, array.toArray());
+            assertEquals(expectedXor, array.xorReduce());
+            for (int i = 0; i < digests.length; i++) {
+                var view = array.view(i);
+                assertEquals(algorithm.longLength(), view.remaining());
+                for (int j = 0; j < algorithm.longLength(); j++) {
+                    assertEquals(digests[i].getLongs()[j], view.get(j));
+                    assertEquals(digests[i].getLongs()[j], array.getLong(i, j));
+                }
+                assertEquals(Integer.signum(digests[i].compareTo(digests[0])), Integer.signum(array.compare(i, 0)));
+                assertEquals(Integer.signum(digests[i].compareTo(digests[7])),
+                             Integer.signum(array.compare(i, digests[7])));
+            }
+
+            var copy = DigestArray.from(algorithm, array.toLongs());
+            assertEquals(array, copy);
+            assertEquals(array.hashCode(), copy.hashCode());
+            assertEquals(array, DigestArray.of(algorithm, List.of(digests)));
+            copy.set(3, digests[4]);
+            assertEquals(digests[4], copy.get(3));
+            copy.addAll(array.toLongs());
+            assertEquals(2 * digests.length, copy.size());
+            assertThrows(IndexOutOfBoundsException.class, () -> array.get(digests.length));
+            assertThrows(IllegalArgumentException.class, () -> array.add(DigestAlgorithm.SHA2_256.getOrigin()));
+            assertThrows(IllegalArgumentException.class, () -> new DigestArray(algorithm, -1));
+            assertThrows(IllegalArgumentException.class, () -> new DigestArray(algorithm, Integer.MAX_VALUE / 2));
+        }
+        assertThrows(IllegalArgumentException.class, () -> DigestSort.sort(new long[8], 4, Integer.MAX_VALUE / 2));
+    }
+
+    @Test
+    public void sortAndSearch() {
+        var entropy = new Random(0x1638);
+        var algorithm = DigestAlgorithm.DEFAULT;
+        for (int size : new int[] { 0, 1, 2, 15, 16, 17, 100, 10_000 }) {
+            var digests = new Digest[size];
+            for (int i = 0; i < size; i++) {
+                // include duplicates and values distinguished only by their low longs
+                digests[i] = i % 7 == 0 && i > 0 ? digests[i - 1] : algorithm.random(entropy);
+                if (i % 11 == 0 && i > 0) {
+                    var longs = digests[i - 1].getLongs().clone();
+                    longs[longs.length - 1] ^= Long.MIN_VALUE;
+                    digests[i] = new Digest(algorithm, longs);
+                }
+            }
+            var array = DigestArray.of(algorithm, digests);
+            array.sort();
+            Arrays.sort(digests);
+            assertArrayEquals(digests, array.toArray(), "size: " + size);
+            for (var d : digests) {
+                var index = array.binarySearch(d);
+                assertTrue(index >= 0);
+                assertEquals(d, array.get(index));
+            }
+            var absent = algorithm.random(entropy);
+            var insertion = -(array.binarySearch(absent) + 1);
+            assertEquals(-(Arrays.binarySearch(digests, absent) + 1), insertion);
+        }
+    }
+}
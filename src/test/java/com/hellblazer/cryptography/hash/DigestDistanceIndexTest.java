@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2023 Hal Hildebrand. All rights reserved.
+ */
+package com.hellblazer.cryptography.hash;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author hal.hildebrand
+ */
+public class DigestDistanceIndexTest {
+
+    @Test
+    public void concurrent() throws Exception {
+        var algorithm = DigestAlgorithm.BLAKE2B_256;
+        var index = new DigestDistanceIndex(algorithm);
+        var threads = 8;
+        var perThread = 2_000;
+        var digests = new Digest[threads][perThread];
+        var entropy = new Random(0x1638);
+        for (var d : digests) {
+            for (int i = 0; i < perThread; i++) {
+                d[i] = algorithm.random(entropy);
+            }
+        }
+        var exec = Executors.newFixedThreadPool(threads);
+        var futures = new ArrayList<Future<?>>();
+        for (int t = 0; t < threads; t++) {
+            var mine = digests[t];
+            futures.add(exec.submit(() -> {
+                for (var d : mine) {
+                    assertTrue(index.add(d));
+                }
+                // remove every other one
+                for (int i = 0; i < mine.length; i += 2) {
+                    assertTrue(index.remove(mine[i]));
+                }
+            }));
+        }
+        for (var future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        exec.shutdown();
+
+        var expected = new HashSet<Digest>();
+        for (var d : digests) {
+            for (int i = 1; i < perThread; i += 2) {
+                expected.add(d[i]);
+            }
+        }
+        assertEquals(expected.size(), index.size());
+        var found = new HashSet<Digest>();
+        index.forEach(found::add);
+        assertEquals(expected, found);
+    }
+
+    @Test
+    public void nearest() {
+        var entropy = new Random(0x1638);
+        var algorithm = DigestAlgorithm.DEFAULT;
+        var index = new DigestDistanceIndex(algorithm);
+        assertNull(index.nearest(algorithm.random(entropy)));
+        var members = new ArrayList<Digest>();
+        for (int i = 0; i < 3_000; i++) {
+            var d = algorithm.random(entropy);
+            members.add(d);
+            assertTrue(index.add(d));
+        }
+        assertFalse(index.add(members.get(0)));
+        assertEquals(members.size(), index.size());
+
+        var sorted = new ArrayList<Digest>();
+        index.forEach(sorted::add);
+        var expected = new ArrayList<>(members);
+        expected.sort(Comparator.naturalOrder());
+        assertEquals(expected, sorted);
+
+        for (int i = 0; i < 100; i++) {
+            var key = algorithm.random(entropy);
+            var byDistance = new ArrayList<>(members);
+            byDistance.sort(Comparator.comparing(key::xor, DigestDistanceIndexTest::unsigned));
+            assertEquals(byDistance.subList(0, 20), index.nearest(key, 20));
+            assertEquals(byDistance.get(0), index.nearest(key));
+        }
+        assertEquals(members.size(), index.nearest(members.get(7), 5_000).size());
+        assertEquals(members.get(7), index.nearest(members.get(7)));
+
+        var snapshot = index.snapshot();
+        for (int i = 0; i < members.size(); i += 3) {
+            assertTrue(index.remove(members.get(i)));
+            assertFalse(index.contains(members.get(i)));
+        }
+        assertFalse(index.remove(members.get(0)));
+        assertEquals(members.size(), snapshot.size());
+        members.forEach(m -> assertTrue(snapshot.contains(m)));
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.add(members.get(0)));
+        assertThrows(IllegalArgumentException.class, () -> index.add(DigestAlgorithm.BLAKE2S_256.getOrigin()));
+        index.clear();
+        assertTrue(index.isEmpty());
+        assertTrue(index.nearest(members.get(0), 3).isEmpty());
+    }
+
+    private static int unsigned(Digest a, Digest b) {
+        return Arrays.compareUnsigned(a.getLongs(), b.getLongs());
+    }
+}
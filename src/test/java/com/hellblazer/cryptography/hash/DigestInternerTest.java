@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2023 Hal Hildebrand. All rights reserved.
+ */
+package com.hellblazer.cryptography.hash;
+
+import com.hellblazer.cryptography.QualifiedBase64;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author hal.hildebrand
+ */
+public class DigestInternerTest {
+
+    @Test
+    public void collected() throws Exception {
+        var interner = new DigestInterner();
+        var entropy = new Random(0x1638);
+        for (int i = 0; i < 1_000; i++) {
+            interner.intern(DigestAlgorithm.DEFAULT.random(entropy));
+        }
+        for (int i = 0; i < 50 && interner.size() > 0; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        assertEquals(0, interner.size());
+    }
+
+    @Test
+    public void intern() {
+        var interner = new DigestInterner();
+        var entropy = new Random(0x1638);
+        var retained = new ArrayList<Digest>();
+        for (var algorithm : new DigestAlgorithm[] { DigestAlgorithm.BLAKE2B_256, DigestAlgorithm.SHA2_512 }) {
+            var digest = algorithm.random(entropy);
+            var canonical = interner.intern(digest);
+            retained.add(canonical);
+            assertSame(digest, canonical);
+
+            var copy = new Digest(algorithm, digest.getLongs().clone());
+            assertSame(canonical, interner.intern(copy));
+            var proto = digest.toDigeste();
+            assertSame(canonical, interner.intern(proto));
+            assertSame(canonical, QualifiedBase64.digest(proto, interner));
+            var qb64 = QualifiedBase64.qb64(digest);
+            assertSame(canonical, QualifiedBase64.digest(qb64, interner));
+            assertNotSame(canonical, QualifiedBase64.digest(qb64));
+        }
+        var fresh = interner.intern(DigestAlgorithm.BLAKE2B_256.random(entropy).toDigeste());
+        retained.add(fresh);
+        assertSame(fresh, interner.intern(fresh.toDigeste()));
+        assertSame(Digest.NONE, interner.intern(Digest.NONE.toDigeste()));
+
+        assertEquals(3, interner.size());
+        assertEquals(3, interner.getMisses());
+        assertEquals(9, interner.getHits());
+        assertEquals(0.75, interner.hitRate());
+        interner.clear();
+        assertEquals(0, interner.size());
+        assertTrue(interner.hitRate() == 0.0);
+    }
+}
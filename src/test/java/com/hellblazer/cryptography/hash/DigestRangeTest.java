@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2023 Hal Hildebrand. All rights reserved.
+ */
+package com.hellblazer.cryptography.hash;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author hal.hildebrand
+ */
+public class DigestRangeTest {
+
+    private static BigInteger big(Digest d) {
+        return new BigInteger(1, d.getBytes());
+    }
+
+    private static Digest digest(DigestAlgorithm algorithm, BigInteger value) {
+        var modulus = BigInteger.ONE.shiftLeft(algorithm.digestLength() * 8);
+        var bytes = value.mod(modulus).add(modulus).toByteArray();
+        var hash = new byte[algorithm.digestLength()];
+        System.arraycopy(bytes, bytes.length - hash.length, hash, 0, hash.length);
+        return new Digest(algorithm, hash);
+    }
+
+    @Test
+    public void arithmetic() {
+        var entropy = new Random(0x1638);
+        for (var algorithm : new DigestAlgorithm[] { DigestAlgorithm.BLAKE2B_256, DigestAlgorithm.BLAKE3_512 }) {
+            var edges = new Digest[] { algorithm.getOrigin(), algorithm.getLast(), digest(algorithm, BigInteger.ONE),
+                                       digest(algorithm, BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE)) };
+            for (int i = 0; i < 500; i++) {
+                var a = i < edges.length ? edges[i] : algorithm.random(entropy);
+                var b = i < edges.length ? edges[(i + 1) % edges.length] : algorithm.random(entropy);
+                assertEquals(digest(algorithm, big(a).add(big(b))), a.add(b));
+                assertEquals(digest(algorithm, big(a).subtract(big(b))), a.subtract(b));
+                assertEquals(digest(algorithm, big(a).add(big(b)).shiftRight(1)), a.midpoint(b));
+                assertEquals(Integer.signum(big(a).compareTo(big(b))), Integer.signum(a.compareTo(b)));
+            }
+        }
+        assertThrows(IllegalArgumentException.class,
+                     () -> DigestAlgorithm.BLAKE2B_256.getOrigin().add(DigestAlgorithm.BLAKE3_512.getOrigin()));
+    }
+
+    @Test
+    public void partition() {
+        var entropy = new Random(0x1638);
+        var algorithm = DigestAlgorithm.DEFAULT;
+        for (var n : new int[] { 1, 2, 3, 7, 64, 1000 }) {
+            var ranges = algorithm.partition(n);
+            assertEquals(n, ranges.length);
+            assertEquals(algorithm.getOrigin(), ranges[0].getStart());
+            assertEquals(algorithm.getLast(), ranges[n - 1].getEnd());
+            var space = BigInteger.ONE.shiftLeft(algorithm.digestLength() * 8);
+            for (int i = 0; i < n; i++) {
+                assertEquals(space.multiply(BigInteger.valueOf(i)).divide(BigInteger.valueOf(n)),
+                             big(ranges[i].getStart()));
+                if (i > 0) {
+                    assertEquals(big(ranges[i - 1].getEnd()).add(BigInteger.ONE), big(ranges[i].getStart()));
+                }
+            }
+            for (int i = 0; i < 100; i++) {
+                var d = algorithm.random(entropy);
+                var found = 0;
+                for (var range : ranges) {
+                    if (range.contains(d)) {
+                        found++;
+                        assertTrue(range.contains(d.getLongs(), 0));
+                        assertTrue(range.contains(range.midpoint()));
+                    } else {
+                        assertFalse(range.contains(d.getLongs(), 0));
+                    }
+                }
+                assertEquals(1, found);
+            }
+        }
+        assertThrows(IllegalArgumentException.class, () -> algorithm.partition(0));
+        assertThrows(IllegalArgumentException.class,
+                     () -> new DigestRange(algorithm.getLast(), algorithm.getOrigin()));
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2023 Hal Hildebrand. All rights reserved.
+ */
+package com.hellblazer.cryptography.hash;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author hal.hildebrand
+ */
+public class DigestRingTest {
+
+    /**
+     * Answer the members of the ring in ascending order of position, computed directly
+     */
+    private static List<Digest> sorted(List<Digest> members, Digest context, int ring) {
+        var sorted = new ArrayList<>(members);
+        sorted.sort(Comparator.comparing(m -> m.prefix(context, ring)));
+        return sorted;
+    }
+
+    @Test
+    public void incremental() {
+        var entropy = new Random(0x1638);
+        var algorithm = DigestAlgorithm.DEFAULT;
+        var context = algorithm.random(entropy);
+        var members = new ArrayList<Digest>();
+        for (int i = 0; i < 1_500; i++) {
+            members.add(algorithm.random(entropy));
+        }
+        var built = DigestRing.build(algorithm, context, 3, members);
+        var ring = new DigestRing(algorithm, context, 3);
+        assertNull(ring.successor(0, context));
+        members.forEach(m -> assertTrue(ring.add(m)));
+        assertFalse(ring.add(members.get(0)));
+        assertEquals(members.size(), built.size());
+        for (int r = 0; r < 3; r++) {
+            var expected = sorted(members, context, r);
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i), built.get(r, i));
+                assertEquals(expected.get(i), ring.get(r, i));
+            }
+        }
+
+        var removed = members.subList(0, 500);
+        removed.forEach(m -> assertTrue(ring.remove(m)));
+        assertFalse(ring.remove(members.get(0)));
+        var remaining = members.subList(500, members.size());
+        assertEquals(remaining.size(), ring.size());
+        for (int r = 0; r < 3; r++) {
+            var expected = sorted(remaining, context, r);
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i), ring.get(r, i));
+            }
+        }
+    }
+
+    @Test
+    public void queries() {
+        var entropy = new Random(0x1638);
+        var algorithm = DigestAlgorithm.BLAKE2B_256;
+        var context = algorithm.random(entropy);
+        var members = new ArrayList<Digest>();
+        for (int i = 0; i < 200; i++) {
+            members.add(algorithm.random(entropy));
+        }
+        var ring = DigestRing.build(algorithm, context, 2, members);
+        for (int r = 0; r < 2; r++) {
+            var sorted = sorted(members, context, r);
+            for (int i = 0; i < sorted.size(); i++) {
+                var member = sorted.get(i);
+                var position = ring.position(member, r);
+                assertEquals(position, ring.positionAt(r, i));
+                assertEquals(sorted.get((i + 1) % sorted.size()), ring.successor(r, position));
+                assertEquals(sorted.get((i - 1 + sorted.size()) % sorted.size()), ring.predecessor(r, position));
+            }
+            var from = ring.positionAt(r, 10);
+            var to = ring.positionAt(r, 20);
+            assertEquals(10, ring.count(r, from, to));
+            var arc = new ArrayList<Digest>();
+            ring.forEach(r, from, to, arc::add);
+            assertEquals(sorted.subList(11, 21), arc);
+
+            // wrapping arc
+            assertEquals(sorted.size() - 10, ring.count(r, to, from));
+            arc.clear();
+            ring.forEach(r, to, from, arc::add);
+            assertEquals(sorted.get(21), arc.get(0));
+            assertEquals(sorted.get(10), arc.get(arc.size() - 1));
+            assertEquals(sorted.size(), ring.count(r, from, from));
+        }
+    }
+}
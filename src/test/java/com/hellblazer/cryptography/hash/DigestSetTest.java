@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2023 Hal Hildebrand. All rights reserved.
+ */
+package com.hellblazer.cryptography.hash;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author hal.hildebrand
+ */
+public class DigestSetTest {
+
+    @Test
+    public void map() {
+        var entropy = new Random(0x1638);
+        var algorithm = DigestAlgorithm.BLAKE3_512;
+        var expected = new HashMap<Digest, Integer>();
+        var map = new DigestMap<Integer>(algorithm);
+        var keys = new Digest[2_000];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = algorithm.random(entropy);
+        }
+        for (int i = 0; i < 20_000; i++) {
+            var key = keys[entropy.nextInt(keys.length)];
+            if (entropy.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                assertEquals(expected.put(key, i), map.put(key, i));
+            }
+        }
+        assertEquals(expected.size(), map.size());
+        for (var key : keys) {
+            assertEquals(expected.get(key), map.get(key));
+            assertEquals(expected.get(key), map.get(key.getLongs(), 0));
+            assertEquals(expected.get(key), map.get(ByteBuffer.wrap(key.getBytes())));
+        }
+        var visited = new HashMap<Digest, Integer>();
+        map.forEach(visited::put);
+        assertEquals(expected, visited);
+
+        var snapshot = map.snapshot();
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertEquals(expected.size(), snapshot.size());
+        expected.forEach((k, v) -> assertEquals(v, snapshot.get(k)));
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.put(keys[0], 0));
+        assertThrows(NullPointerException.class, () -> map.put(keys[0], null));
+        assertEquals(7, map.computeIfAbsent(keys[0], k -> 7));
+        assertEquals(7, map.computeIfAbsent(keys[0], k -> 8));
+    }
+
+    @Test
+    public void set() {
+        var entropy = new Random(0x1638);
+        var algorithm = DigestAlgorithm.DEFAULT;
+        var expected = new HashSet<Digest>();
+        var set = new DigestSet(algorithm);
+        var members = new Digest[5_000];
+        for (int i = 0; i < members.length; i++) {
+            // structured keys that differ only in their trailing long
+            members[i] = i % 2 == 0 ? algorithm.random(entropy) : new Digest(algorithm, new long[] { 0, 0, 0, i });
+        }
+        for (int i = 0; i < 50_000; i++) {
+            var member = members[entropy.nextInt(members.length)];
+            if (entropy.nextBoolean()) {
+                assertEquals(expected.remove(member), set.remove(member));
+            } else {
+                assertEquals(expected.add(member), set.add(member));
+            }
+            if (i == 25_000) {
+                var snapshot = set.snapshot();
+                var frozen = new HashSet<>(expected);
+                for (int j = 0; j < 1_000; j++) {
+                    set.remove(members[j]);
+                    expected.remove(members[j]);
+                }
+                for (var m : members) {
+                    assertEquals(frozen.contains(m), snapshot.contains(m));
+                }
+                assertEquals(frozen.size(), snapshot.size());
+                assertThrows(UnsupportedOperationException.class, () -> snapshot.add(members[0]));
+            }
+        }
+        assertEquals(expected.size(), set.size());
+        for (var m : members) {
+            assertEquals(expected.contains(m), set.contains(m));
+            assertEquals(expected.contains(m), set.contains(m.getLongs(), 0));
+            var buffer = ByteBuffer.allocateDirect(40).position(3);
+            buffer.put(m.getBytes()).position(3);
+            assertEquals(expected.contains(m), set.contains(buffer));
+            assertEquals(3, buffer.position());
+            var little = ByteBuffer.wrap(m.getBytes()).order(ByteOrder.LITTLE_ENDIAN);
+            assertEquals(expected.contains(m), set.contains(little));
+        }
+        var visited = new HashSet<Digest>();
+        set.forEach(visited::add);
+        assertEquals(expected, visited);
+        var array = set.toDigestArray();
+        assertEquals(expected.size(), array.size());
+        for (var d : array.toArray()) {
+            assertTrue(expected.contains(d));
+        }
+        assertFalse(set.contains(algorithm.random(entropy)));
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertFalse(set.contains(members[0]));
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2023 Hal Hildebrand. All rights reserved.
+ */
+package com.hellblazer.cryptography.hash;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * Comparison of the radix sort of DigestSort with comparison sorting. Not part of the default test run; execute with
+ * <code>mvn test -Dtest=DigestSortBenchmark</code>
+ *
+ * @author hal.hildebrand
+ */
+public class DigestSortBenchmark {
+    private static final int[] COUNTS     = { 100_000, 1_000_000, 4_000_000 };
+    private static final int   ITERATIONS = 5;
+    private static final int   WARM_UP    = 2;
+
+    private static <T> double millis(T source, UnaryOperator<T> copy, Consumer<T> sort) {
+        for (int i = 0; i < WARM_UP; i++) {
+            sort.accept(copy.apply(source));
+        }
+        long elapsed = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            var target = copy.apply(source);
+            var start = System.nanoTime();
+            sort.accept(target);
+            elapsed += System.nanoTime() - start;
+        }
+        return elapsed / 1_000_000.0 / ITERATIONS;
+    }
+
+    @Test
+    public void sort() {
+        var entropy = new Random(0x1638);
+        var algorithm = DigestAlgorithm.DEFAULT;
+        System.out.println(
+        String.format("%-10s %12s %12s %12s %12s %12s", "count", "sort ms", "parallel ms", "radix ms", "array ms",
+                      "packed ms"));
+        for (var count : COUNTS) {
+            var digests = new Digest[count];
+            for (int i = 0; i < count; i++) {
+                digests[i] = algorithm.random(entropy);
+            }
+            var array = DigestArray.of(algorithm, digests);
+            var sorted = millis(digests, Digest[]::clone, Arrays::sort);
+            var parallel = millis(digests, Digest[]::clone, Arrays::parallelSort);
+            var radix = millis(digests, Digest[]::clone, DigestSort::sort);
+            var quick = millis(array, a -> DigestArray.from(algorithm, a.toLongs()), DigestArray::sort);
+            var packed = millis(array, a -> DigestArray.from(algorithm, a.toLongs()), DigestArray::parallelSort);
+            System.out.println(
+            String.format("%-10d %12.1f %12.1f %12.1f %12.1f %12.1f", count, sorted, parallel, radix, quick, packed));
+        }
+    }
+}
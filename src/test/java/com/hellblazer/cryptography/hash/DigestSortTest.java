@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2023 Hal Hildebrand. All rights reserved.
+ */
+package com.hellblazer.cryptography.hash;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+/**
+ * @author hal.hildebrand
+ */
+public class DigestSortTest {
+
+    @Test
+    public void digests() {
+        var entropy = new Random(0x1638);
+        for (var count : new int[] { 0, 1, 2, 31, 1_000, 200_000 }) {
+            var digests = new Digest[count];
+            for (int i = 0; i < count; i++) {
+                // shared prefixes and duplicates exercise the deeper passes
+                digests[i] = i % 7 == 0 && i > 0 ? digests[i / 2] : DigestAlgorithm.DEFAULT.random(entropy);
+                if (i % 5 == 0) {
+                    var longs = digests[i].getLongs().clone();
+                    longs[0] = 0x1638L;
+                    digests[i] = new Digest(DigestAlgorithm.DEFAULT, longs);
+                }
+            }
+            var expected = digests.clone();
+            Arrays.sort(expected);
+            DigestSort.sort(digests);
+            assertArrayEquals(expected, digests);
+        }
+
+        var mixed = new Digest[] { DigestAlgorithm.BLAKE3_512.random(entropy), DigestAlgorithm.BLAKE3_256.random(
+        entropy), DigestAlgorithm.BLAKE3_512.random(entropy) };
+        var expected = mixed.clone();
+        Arrays.sort(expected);
+        DigestSort.sort(mixed);
+        assertArrayEquals(expected, mixed);
+
+        var empty = new Digest[100];
+        for (int i = 0; i < empty.length; i++) {
+            empty[i] = DigestAlgorithm.NONE.random(entropy);
+        }
+        expected = empty.clone();
+        DigestSort.sort(empty);
+        assertArrayEquals(expected, empty);
+    }
+
+    @Test
+    public void packed() {
+        var entropy = new Random(0x1638);
+        var algorithm = DigestAlgorithm.BLAKE3_512;
+        var digests = new Digest[150_000];
+        for (int i = 0; i < digests.length; i++) {
+            digests[i] = algorithm.random(entropy);
+        }
+        var array = DigestArray.of(algorithm, digests);
+        array.add(digests[3]);
+        array.parallelSort();
+        var expected = DigestArray.of(algorithm, digests);
+        expected.add(digests[3]);
+        expected.sort();
+        assertArrayEquals(expected.toLongs(), array.toLongs());
+    }
+}
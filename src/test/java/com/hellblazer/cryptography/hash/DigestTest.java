@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2023 Hal Hildebrand. All rights reserved.
+ */
+package com.hellblazer.cryptography.hash;
+
+import com.google.protobuf.ByteString;
+import com.hellblazer.cryptography.proto.Digest_;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author hal.hildebrand
+ */
+public class DigestTest {
+
+    @Test
+    public void wireForms() throws Exception {
+        var entropy = new Random(0x1638);
+        for (var algorithm : DigestAlgorithm.values()) {
+            var digest = algorithm == DigestAlgorithm.NONE ? Digest.NONE : algorithm.random(entropy);
+            var compact = digest.toCompactDigeste();
+            var legacy = digest.toDigeste();
+            assertEquals(digest, new Digest(compact));
+            assertEquals(digest, new Digest(legacy));
+            assertEquals(digest, new Digest(Digest_.parseFrom(compact.toByteString())));
+            assertEquals(digest, new Digest(Digest_.parseFrom(legacy.toByteString())));
+            if (algorithm != DigestAlgorithm.NONE) {
+                assertEquals(algorithm.digestLength(), compact.getBytes().size());
+                assertEquals(0, compact.getHashCount());
+                assertTrue(legacy.getBytes().isEmpty());
+                assertEquals(algorithm.longLength(), legacy.getHashCount());
+                assertTrue(compact.getSerializedSize() < legacy.getSerializedSize(),
+                           compact.getSerializedSize() + " >= " + legacy.getSerializedSize());
+            }
+        }
+
+        var interner = new DigestInterner();
+        var digest = DigestAlgorithm.DEFAULT.random(entropy);
+        var canonical = interner.intern(digest.toDigeste());
+        assertSame(canonical, interner.intern(digest.toCompactDigeste()));
+
+        var truncated = Digest_.newBuilder()
+                               .setType(DigestAlgorithm.DEFAULT.digestCode())
+                               .setBytes(ByteString.copyFrom(new byte[31]))
+                               .build();
+        assertThrows(IllegalArgumentException.class, () -> new Digest(truncated));
+        assertThrows(IllegalArgumentException.class,
+                     () -> new Digest(digest.toDigeste().toBuilder().addHash(0).build()));
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2023 Hal Hildebrand. All rights reserved.
+ */
+package com.hellblazer.cryptography.hash;
+
+import com.google.protobuf.ByteString;
+import com.hellblazer.cryptography.proto.LtHash_;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author hal.hildebrand
+ */
+public class LtHashTest {
+
+    @Test
+    public void lanes() {
+        var entropy = new Random(0x1638);
+        for (int i = 0; i < 10_000; i++) {
+            var a = entropy.nextLong();
+            var b = entropy.nextLong();
+            var sum = LtHash.add(a, b);
+            var difference = LtHash.subtract(a, b);
+            for (int lane = 0; lane < 4; lane++) {
+                var shift = lane * 16;
+                var x = (int) (a >>> shift) & 0xFFFF;
+                var y = (int) (b >>> shift) & 0xFFFF;
+                assertEquals((x + y) & 0xFFFF, (int) (sum >>> shift) & 0xFFFF);
+                assertEquals((x - y) & 0xFFFF, (int) (difference >>> shift) & 0xFFFF);
+            }
+        }
+
+        var element = new byte[] { 1, 2, 3 };
+        var expansion = ByteBuffer.allocate(2 * LtHash.LANES);
+        for (var d : DigestAlgorithm.BLAKE3_256.xof(2 * LtHash.LANES / 32, ByteBuffer.wrap(element))) {
+            expansion.put(d.getBytes());
+        }
+        var hash = new LtHash().add(element).add(element);
+        for (int i = 0; i < LtHash.LANES; i++) {
+            var lane = (expansion.get(2 * i) & 0xFF) | (expansion.get(2 * i + 1) & 0xFF) << 8;
+            assertEquals((2 * lane) & 0xFFFF, hash.lane(i));
+        }
+    }
+
+    @Test
+    public void multisets() {
+        var entropy = new Random(0x1638);
+        var elements = new ArrayList<Digest>();
+        for (int i = 0; i < 1000; i++) {
+            elements.add(DigestAlgorithm.DEFAULT.random(entropy));
+        }
+        var hash = new LtHash();
+        elements.forEach(hash::add);
+        assertEquals(1000, hash.getCount());
+
+        var shuffled = new ArrayList<>(elements);
+        Collections.shuffle(shuffled, entropy);
+        var reordered = new LtHash();
+        shuffled.forEach(reordered::add);
+        assertEquals(hash, reordered);
+        assertEquals(hash.digest(DigestAlgorithm.DEFAULT), reordered.digest(DigestAlgorithm.DEFAULT));
+        assertEquals(hash, LtHash.of(elements));
+
+        var first = new LtHash();
+        elements.subList(0, 400).forEach(first::add);
+        var second = new LtHash();
+        elements.subList(400, 1000).forEach(second::add);
+        assertEquals(hash, first.copy().merge(second));
+        assertEquals(first, hash.copy().subtract(second));
+
+        var removed = hash.copy();
+        elements.subList(400, 1000).forEach(removed::remove);
+        assertEquals(first, removed);
+        elements.subList(0, 400).forEach(removed::remove);
+        assertTrue(removed.isEmpty());
+        assertEquals(new LtHash(), removed);
+
+        var element = elements.get(0);
+        var twice = new LtHash().add(element).add(element);
+        assertFalse(twice.isEmpty());
+        assertNotEquals(new LtHash().add(element), twice);
+        assertEquals(new LtHash().add(element.getBytes()), new LtHash().add(element));
+        assertEquals(new LtHash().add(ByteBuffer.wrap(element.getBytes())), new LtHash().add(element));
+
+        assertEquals(hash, new LtHash(hash.toLtHashe()));
+        assertThrows(IllegalArgumentException.class,
+                     () -> new LtHash(LtHash_.newBuilder().setLanes(ByteString.copyFrom(new byte[10])).build()));
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2023 Hal Hildebrand. All rights reserved.
+ */
+package com.hellblazer.cryptography.hash;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author hal.hildebrand
+ */
+public class MerkleTreeTest {
+    private static final DigestAlgorithm ALGORITHM = DigestAlgorithm.DEFAULT;
+
+    private static Digest[] leaves(int count) {
+        var entropy = new Random(0x1638);
+        var leaves = new Digest[count];
+        for (int i = 0; i < count; i++) {
+            leaves[i] = ALGORITHM.random(entropy);
+        }
+        return leaves;
+    }
+
+    private static Digest reference(List<Digest> leaves) {
+        if (leaves.isEmpty()) {
+            return ALGORITHM.digest(new byte[0]);
+        }
+        if (leaves.size() == 1) {
+            return ALGORITHM.digest(new byte[] { 0 }, leaves.get(0).getBytes());
+        }
+        var k = Integer.highestOneBit(leaves.size() - 1);
+        return ALGORITHM.digest(new byte[] { 1 }, reference(leaves.subList(0, k)).getBytes(),
+                                reference(leaves.subList(k, leaves.size())).getBytes());
+    }
+
+    @Test
+    public void appendAndBuild() {
+        var leaves = leaves(70);
+        var tree = new MerkleTree(ALGORITHM);
+        assertEquals(reference(List.of()), tree.root());
+        for (int i = 0; i < leaves.length; i++) {
+            assertEquals(i, tree.append(leaves[i]));
+            var expected = reference(Arrays.asList(leaves).subList(0, i + 1));
+            assertEquals(expected, tree.root(), "size: " + (i + 1));
+            assertEquals(expected, MerkleTree.build(ALGORITHM, Arrays.copyOf(leaves, i + 1)).root());
+        }
+        for (int i = 0; i <= leaves.length; i++) {
+            assertEquals(reference(Arrays.asList(leaves).subList(0, i)), tree.root(i), "size: " + i);
+        }
+    }
+
+    @Test
+    public void consistencyProofs() {
+        var leaves = leaves(40);
+        var tree = MerkleTree.build(ALGORITHM, leaves);
+        for (int second = 0; second <= leaves.length; second++) {
+            for (int first = 0; first <= second; first++) {
+                var proof = tree.consistencyProof(first, second);
+                var firstRoot = tree.root(first);
+                var secondRoot = tree.root(second);
+                assertTrue(proof.verifyConsistency(firstRoot, secondRoot), first + ":" + second);
+                assertTrue(MerkleTree.Proof.from(proof.toMerkleProofe()).verifyConsistency(firstRoot, secondRoot));
+                if (first > 0 && first < second) {
+                    assertFalse(proof.verifyConsistency(tree.root(first - 1), secondRoot), first + ":" + second);
+                    assertFalse(proof.verifyConsistency(firstRoot, tree.root(second - 1)), first + ":" + second);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void inclusionProofs() {
+        var leaves = leaves(40);
+        var tree = new MerkleTree(ALGORITHM);
+        for (var leaf : leaves) {
+            tree.append(leaf);
+        }
+        for (int size = 1; size <= leaves.length; size++) {
+            var root = tree.root(size);
+            for (int index = 0; index < size; index++) {
+                var proof = tree.inclusionProof(index, size);
+                assertTrue(proof.verifyInclusion(leaves[index], root), index + ":" + size);
+                var deserialized = MerkleTree.Proof.from(proof.toMerkleProofe());
+                assertEquals(proof.getPath(), deserialized.getPath());
+                assertTrue(deserialized.verifyInclusion(leaves[index], root), index + ":" + size);
+                assertFalse(proof.verifyInclusion(leaves[(index + 1) % leaves.length], root), index + ":" + size);
+                if (size > 1) {
+                    var path = new ArrayList<>(proof.getPath());
+                    path.set(0, path.get(0).rehash());
+                    assertFalse(new MerkleTree.Proof(ALGORITHM, index, size, path).verifyInclusion(leaves[index],
+                                                                                                  root));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void parallelBuild() {
+        var leaves = leaves(10_007);
+        var tree = new MerkleTree(ALGORITHM);
+        for (var leaf : leaves) {
+            tree.append(leaf);
+        }
+        var built = MerkleTree.build(ALGORITHM, leaves);
+        assertEquals(tree.root(), built.root());
+        assertEquals(tree.size(), built.size());
+        var proof = built.inclusionProof(5_000);
+        assertTrue(proof.verifyInclusion(leaves[5_000], tree.root()));
+        assertTrue(built.consistencyProof(1_000).verifyConsistency(tree.root(1_000), tree.root()));
+        built.append(leaves[0]);
+        tree.append(leaves[0]);
+        assertEquals(tree.root(), built.root());
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2023 Hal Hildebrand. All rights reserved.
+ */
+package com.hellblazer.cryptography.hash;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.EnumSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author hal.hildebrand
+ */
+public class MultiDigestTest {
+
+    @Test
+    public void digests() throws Exception {
+        var entropy = new Random(0x1638);
+        var algorithms = new DigestAlgorithm[] { DigestAlgorithm.BLAKE3_256, DigestAlgorithm.SHA2_256,
+                                                 DigestAlgorithm.BLAKE2B_512, DigestAlgorithm.SHA2_256 };
+        for (int size : new int[] { 0, 1, 1000, 64 * 1024, 300_001 }) {
+            var bytes = new byte[size];
+            entropy.nextBytes(bytes);
+            for (var parallel : new boolean[] { false, true }) {
+                try (var multi = new MultiDigest(parallel, algorithms)) {
+                    assertEquals(EnumSet.of(DigestAlgorithm.BLAKE3_256, DigestAlgorithm.SHA2_256,
+                                            DigestAlgorithm.BLAKE2B_512), multi.getAlgorithms());
+
+                    var digests = multi.update(new ByteArrayInputStream(bytes)).finish();
+                    assertEquals(3, digests.size());
+                    digests.forEach((algorithm, digest) -> assertEquals(algorithm.digest(bytes), digest,
+                                                                        algorithm + ":" + size + ":" + parallel));
+
+                    var direct = ByteBuffer.allocateDirect(size).put(bytes).flip();
+                    assertEquals(digests, multi.update(direct).finish());
+                    assertEquals(direct.limit(), direct.position());
+
+                    var half = size / 2;
+                    assertEquals(digests, multi.update(bytes, 0, half).update(bytes, half, size - half).finish());
+                    assertEquals(digests, multi.update(bytes).reset().update(bytes).finish());
+                }
+            }
+            assertEquals(MultiDigest.digest(new ByteArrayInputStream(bytes), algorithms),
+                         new MultiDigest(true, algorithms).update(bytes).finish());
+
+            var file = Files.createTempFile("multi", ".bin");
+            try {
+                Files.write(file, bytes);
+                assertEquals(MultiDigest.digest(new ByteArrayInputStream(bytes), algorithms),
+                             MultiDigest.digest(file, algorithms));
+            } finally {
+                Files.delete(file);
+            }
+        }
+        assertThrows(IllegalArgumentException.class, MultiDigest::new);
+    }
+}
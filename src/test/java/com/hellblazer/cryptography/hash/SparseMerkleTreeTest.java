@@ -0,0 +1,217 @@
+/*
+ * Copyright (C) 2023 Hal Hildebrand. All rights reserved.
+ */
+package com.hellblazer.cryptography.hash;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author hal.hildebrand
+ */
+public class SparseMerkleTreeTest {
+    private static final DigestAlgorithm ALGORITHM = DigestAlgorithm.DEFAULT;
+
+    @Test
+    public void batches() {
+        var entropy = new Random(0x1638);
+        var entries = new HashMap<Digest, Digest>();
+        for (int i = 0; i < 5000; i++) {
+            entries.put(DigestAlgorithm.BLAKE3_256.random(entropy), ALGORITHM.random(entropy));
+        }
+        var batched = new SparseMerkleTree(ALGORITHM);
+        batched.update(entries);
+        var single = new SparseMerkleTree(ALGORITHM);
+        entries.forEach(single::put);
+        assertEquals(5000, batched.size());
+        assertEquals(single.root(), batched.root());
+
+        var keys = new ArrayList<>(entries.keySet());
+        var updates = new HashMap<Digest, Digest>();
+        for (int i = 0; i < 2000; i++) {
+            updates.put(keys.get(i), i % 2 == 0 ? null : ALGORITHM.random(entropy));
+        }
+        updates.put(ALGORITHM.random(entropy), null);
+        batched.update(updates);
+        updates.forEach((k, v) -> {
+            if (v == null) {
+                single.remove(k);
+            } else {
+                single.put(k, v);
+            }
+        });
+        assertEquals(4000, batched.size());
+        assertEquals(single.root(), batched.root());
+
+        var root = batched.root();
+        batched.update(Map.of(keys.get(1), batched.get(keys.get(1))));
+        assertEquals(root, batched.root());
+
+        var all = new HashMap<Digest, Digest>();
+        keys.forEach(k -> all.put(k, null));
+        batched.update(all);
+        assertTrue(batched.isEmpty());
+        assertEquals(new SparseMerkleTree(ALGORITHM).root(), batched.root());
+    }
+
+    @Test
+    public void keyBits() {
+        var entropy = new Random(0x1638);
+        var key = DigestAlgorithm.BLAKE3_256.random(entropy);
+        var alias = new Digest(DigestAlgorithm.SHA2_256, key.getLongs());
+        var value = ALGORITHM.random(entropy);
+        var replacement = ALGORITHM.random(entropy);
+
+        var tree = new SparseMerkleTree(ALGORITHM);
+        tree.put(key, value);
+        assertEquals(value, tree.get(alias));
+        tree.put(alias, replacement);
+        assertEquals(1, tree.size());
+        assertEquals(replacement, tree.get(key));
+        assertEquals(replacement, tree.get(alias));
+        var single = new SparseMerkleTree(ALGORITHM);
+        single.put(key, replacement);
+        assertEquals(single.root(), tree.root());
+        tree.remove(alias);
+        assertTrue(tree.isEmpty());
+
+        var updates = new HashMap<Digest, Digest>();
+        updates.put(key, value);
+        updates.put(alias, replacement);
+        assertThrows(IllegalArgumentException.class, () -> new SparseMerkleTree(ALGORITHM).update(updates));
+        tree.put(ALGORITHM.random(entropy), value);
+        assertThrows(IllegalArgumentException.class, () -> tree.update(updates));
+        assertEquals(1, tree.size());
+    }
+
+    @Test
+    public void proofs() {
+        var entropy = new Random(0x1638);
+        var tree = new SparseMerkleTree(ALGORITHM);
+        var empty = tree.prove(ALGORITHM.random(entropy));
+        assertFalse(empty.isMember());
+        assertTrue(empty.verify(tree.root()));
+        assertTrue(empty.getSiblings().isEmpty());
+
+        var entries = new HashMap<Digest, Digest>();
+        for (int i = 0; i < 500; i++) {
+            entries.put(ALGORITHM.random(entropy), ALGORITHM.random(entropy));
+        }
+        tree.update(entries);
+        var root = tree.root();
+        entries.forEach((key, value) -> {
+            var proof = tree.prove(key);
+            assertEquals(value, proof.getValue());
+            assertTrue(proof.verify(root));
+            assertTrue(proof.getSiblings().size() < 32, "siblings: " + proof.getSiblings().size());
+            assertFalse(proof.verify(ALGORITHM.random(entropy)));
+        });
+        for (int i = 0; i < 100; i++) {
+            var absent = ALGORITHM.random(entropy);
+            var proof = tree.prove(absent);
+            assertNull(proof.getValue());
+            assertTrue(proof.verify(root));
+            var forged = new SparseMerkleTree.Proof(ALGORITHM, absent, ALGORITHM.random(entropy), new long[4],
+                                                    proof.getSiblings());
+            assertFalse(forged.verify(root));
+        }
+
+        var key = entries.keySet().iterator().next();
+        var proof = tree.prove(key);
+        var deserialized = SparseMerkleTree.Proof.from(proof.toSparseMerkleProofe());
+        assertEquals(proof.getValue(), deserialized.getValue());
+        assertEquals(proof.getSiblings(), deserialized.getSiblings());
+        assertTrue(deserialized.verify(root));
+        assertTrue(SparseMerkleTree.Proof.from(tree.prove(ALGORITHM.random(entropy)).toSparseMerkleProofe())
+                                         .verify(root));
+
+        tree.remove(key);
+        assertNotEquals(root, tree.root());
+        assertFalse(proof.verify(tree.root()));
+        assertTrue(tree.prove(key).verify(tree.root()));
+        assertNull(tree.prove(key).getValue());
+        assertThrows(IllegalArgumentException.class, () -> tree.get(DigestAlgorithm.BLAKE2B_512.random(entropy)));
+    }
+
+    @Test
+    public void reference() {
+        var entropy = new Random(0x1638);
+        var tree = new SparseMerkleTree(ALGORITHM);
+        var entries = new TreeMap<Digest, Digest>();
+        assertEquals(reference(entries), tree.root());
+        for (int i = 0; i < 40; i++) {
+            var key = ALGORITHM.random(entropy);
+            var value = ALGORITHM.random(entropy);
+            entries.put(key, value);
+            tree.put(key, value);
+            assertEquals(value, tree.get(key));
+        }
+        assertEquals(reference(entries), tree.root());
+        var first = entries.firstKey();
+        entries.remove(first);
+        tree.remove(first);
+        assertNull(tree.get(first));
+        assertEquals(reference(entries), tree.root());
+    }
+
+    private Digest combine(Digest left, Digest right) {
+        var hasher = ALGORITHM.newHasher().update((byte) 1);
+        for (var word : left.getLongs()) {
+            hasher.update(word);
+        }
+        for (var word : right.getLongs()) {
+            hasher.update(word);
+        }
+        return hasher.finish();
+    }
+
+    /**
+     * Answer the root of the complete tree of the entries, computed naively level by level
+     */
+    private Digest reference(TreeMap<Digest, Digest> entries) {
+        var empty = new Digest[SparseMerkleTree.DEPTH + 1];
+        empty[SparseMerkleTree.DEPTH] = ALGORITHM.getOrigin();
+        for (int d = SparseMerkleTree.DEPTH - 1; d >= 0; d--) {
+            empty[d] = combine(empty[d + 1], empty[d + 1]);
+        }
+        return reference(new ArrayList<>(entries.entrySet()), 0, empty);
+    }
+
+    private Digest reference(List<Map.Entry<Digest, Digest>> entries, int depth, Digest[] empty) {
+        if (entries.isEmpty()) {
+            return empty[depth];
+        }
+        if (depth == SparseMerkleTree.DEPTH) {
+            var entry = entries.get(0);
+            var hasher = ALGORITHM.newHasher().update((byte) 0);
+            for (var word : entry.getKey().getLongs()) {
+                hasher.update(word);
+            }
+            hasher.update(entry.getValue().getAlgorithm().digestCode());
+            for (var word : entry.getValue().getLongs()) {
+                hasher.update(word);
+            }
+            return hasher.finish();
+        }
+        var left = new ArrayList<Map.Entry<Digest, Digest>>();
+        var right = new ArrayList<Map.Entry<Digest, Digest>>();
+        for (var entry : entries) {
+            var word = entry.getKey().getLongs()[depth >>> 6];
+            ((word >>> (63 - (depth & 63)) & 1) == 0 ? left : right).add(entry);
+        }
+        return combine(reference(left, depth + 1, empty), reference(right, depth + 1, empty));
+    }
+}